@@ -0,0 +1,76 @@
+package apicross.apidocli.benchmarks;
+
+import apicross.apidocli.ApiDocCommand;
+import org.openjdk.jmh.annotations.*;
+import picocli.CommandLine;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end benchmark of the command: reading, preprocessing, merging, resolving and writing of generated specifications.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ApiDocCommandBenchmark {
+    private static final int PARTS = 3;
+
+    @Param({"100", "1000", "10000"})
+    int schemas;
+
+    @Param({"false", "true"})
+    boolean prune;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void writeSpecifications() throws IOException {
+        directory = Files.createTempDirectory("apidocli-benchmark");
+        for (int i = 0; i < PARTS; i++) {
+            new SpecificationGenerator()
+                    .schemas(schemas)
+                    .paths(Math.max(schemas / 4, 1))
+                    .seed(i)
+                    .write(directory.resolve(partFileName(i)).toFile());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteSpecifications() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.map(Path::toFile).sorted((a, b) -> -a.compareTo(b)).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public int run() {
+        List<String> args = new ArrayList<>(Arrays.asList(
+                "-dir", directory.toString(),
+                "-s", partFileName(0), partFileName(1) + "#P1", partFileName(2) + "#P2",
+                "-o", directory.resolve("out.yaml").toString(),
+                "-t", "tag0"));
+        if (prune) {
+            args.add("--prune");
+        }
+        int exitCode = new CommandLine(new ApiDocCommand()).execute(args.toArray(new String[0]));
+        if (exitCode != 0) {
+            throw new IllegalStateException("Command failed with exit code " + exitCode);
+        }
+        return exitCode;
+    }
+
+    private static String partFileName(int index) {
+        return "part" + index + ".yaml";
+    }
+}
@@ -0,0 +1,69 @@
+package apicross.apidocli.benchmarks;
+
+import apicross.apidocli.processors.AddPrefixToSchemaNameProcessor;
+import apicross.apidocli.processors.CleanUnusedModelsProcessor;
+import apicross.apidocli.processors.MergeSpecificationsProcessor;
+import apicross.apidocli.processors.RemoveOperationWithTagsProcessor;
+import io.swagger.v3.oas.models.OpenAPI;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the specification processors. Processors modify given specification in place, so a fresh
+ * specification is generated before every invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ProcessorsBenchmark {
+    @Param({"100", "1000", "10000", "100000"})
+    int schemas;
+
+    private OpenAPI openAPI;
+    private OpenAPI part;
+
+    @Setup(Level.Invocation)
+    public void generate() {
+        openAPI = generator(1).generate();
+        part = generator(2).generate();
+        new AddPrefixToSchemaNameProcessor().process(part, "Part");
+    }
+
+    @Benchmark
+    public OpenAPI addPrefix() {
+        new AddPrefixToSchemaNameProcessor().process(openAPI, "Prefix");
+        return openAPI;
+    }
+
+    @Benchmark
+    public OpenAPI removeOperationsWithTags() {
+        new RemoveOperationWithTagsProcessor().process(openAPI, new HashSet<>(Arrays.asList("tag0", "tag1")));
+        return openAPI;
+    }
+
+    @Benchmark
+    public OpenAPI cleanUnusedModels() {
+        new CleanUnusedModelsProcessor().process(openAPI);
+        return openAPI;
+    }
+
+    @Benchmark
+    public OpenAPI mergeSpecifications() {
+        new MergeSpecificationsProcessor().process(openAPI, Collections.singletonList(part));
+        return openAPI;
+    }
+
+    private SpecificationGenerator generator(long seed) {
+        return new SpecificationGenerator()
+                .schemas(schemas)
+                .paths(Math.max(schemas / 4, 1))
+                .seed(seed);
+    }
+}
@@ -0,0 +1,164 @@
+package apicross.apidocli.benchmarks;
+
+import io.swagger.v3.core.util.Yaml;
+import io.swagger.v3.oas.models.*;
+import io.swagger.v3.oas.models.info.Info;
+import io.swagger.v3.oas.models.media.*;
+import io.swagger.v3.oas.models.parameters.Parameter;
+import io.swagger.v3.oas.models.parameters.PathParameter;
+import io.swagger.v3.oas.models.parameters.RequestBody;
+import io.swagger.v3.oas.models.responses.ApiResponse;
+import io.swagger.v3.oas.models.responses.ApiResponses;
+import io.swagger.v3.oas.models.tags.Tag;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Deterministic generator of synthetic specifications. The same settings always give the same specification.
+ */
+public class SpecificationGenerator {
+    private static final String[] FORMATS = {"date-time", "uuid", "email", "uri", null};
+
+    private int paths = 100;
+    private int schemas = 100;
+    private int depth = 2;
+    private int fanOut = 3;
+    private int tags = 5;
+    private long seed = 42;
+
+    /**
+     * Number of paths, each path has GET and POST operations
+     */
+    public SpecificationGenerator paths(int paths) {
+        this.paths = paths;
+        return this;
+    }
+
+    /**
+     * Number of component schemas
+     */
+    public SpecificationGenerator schemas(int schemas) {
+        this.schemas = schemas;
+        return this;
+    }
+
+    /**
+     * Nesting depth of inline object schemas inside component schemas
+     */
+    public SpecificationGenerator depth(int depth) {
+        this.depth = depth;
+        return this;
+    }
+
+    /**
+     * Number of references from each component schema to other component schemas
+     */
+    public SpecificationGenerator fanOut(int fanOut) {
+        this.fanOut = fanOut;
+        return this;
+    }
+
+    /**
+     * Number of tags operations are spread over
+     */
+    public SpecificationGenerator tags(int tags) {
+        this.tags = tags;
+        return this;
+    }
+
+    public SpecificationGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public OpenAPI generate() {
+        Random random = new Random(seed);
+
+        OpenAPI openAPI = new OpenAPI()
+                .info(new Info().title("Generated API " + seed).version("1.0.0"))
+                .components(new Components())
+                .paths(new Paths());
+
+        for (int i = 0; i < tags; i++) {
+            openAPI.addTagsItem(new Tag().name(tagName(i)).description("Operations of tag " + i));
+        }
+
+        for (int i = 0; i < schemas; i++) {
+            openAPI.getComponents().addSchemas(schemaName(i), objectSchema(random, depth, true));
+        }
+
+        openAPI.getComponents().addParameters("Id", new PathParameter().name("id").schema(new StringSchema()));
+
+        for (int i = 0; i < paths; i++) {
+            PathItem pathItem = new PathItem()
+                    .addParametersItem(new Parameter().$ref("#/components/parameters/Id"))
+                    .get(operation(random, "get" + i))
+                    .post(operation(random, "post" + i)
+                            .requestBody(new RequestBody().content(jsonContent(randomSchemaRef(random)))));
+            openAPI.getPaths().addPathItem("/resources" + i + "/{id}", pathItem);
+        }
+
+        return openAPI;
+    }
+
+    /**
+     * Writes generated specification to YAML file
+     */
+    public void write(File file) throws IOException {
+        Yaml.mapper().writeValue(file, generate());
+    }
+
+    private Operation operation(Random random, String operationId) {
+        return new Operation()
+                .operationId(operationId)
+                .summary("Operation " + operationId)
+                .description("Generated operation " + operationId)
+                .addTagsItem(tagName(random.nextInt(Math.max(tags, 1))))
+                .responses(new ApiResponses()
+                        .addApiResponse("200", new ApiResponse()
+                                .description("Successful response")
+                                .content(jsonContent(randomSchemaRef(random))))
+                        .addApiResponse("404", new ApiResponse()
+                                .description("Not found")));
+    }
+
+    private Schema<?> objectSchema(Random random, int depth, boolean withRefs) {
+        ObjectSchema schema = new ObjectSchema();
+        schema.description("Generated object");
+        schema.addProperties("id", new StringSchema().format("uuid").description("Identifier"));
+        schema.addProperties("name", new StringSchema().description("Name"));
+        schema.addProperties("count", new IntegerSchema().format("int64"));
+        schema.addProperties("status", new StringSchema()._enum(Arrays.asList("NEW", "ACTIVE", "CLOSED")));
+        schema.addProperties("value", new StringSchema().format(FORMATS[random.nextInt(FORMATS.length)]));
+
+        if (withRefs) {
+            for (int i = 0; i < fanOut; i++) {
+                Schema<?> ref = randomSchemaRef(random);
+                schema.addProperties("ref" + i, i % 2 == 0 ? ref : new ArraySchema().items(ref));
+            }
+        }
+
+        if (depth > 0) {
+            schema.addProperties("nested", objectSchema(random, depth - 1, false));
+        }
+        return schema;
+    }
+
+    private Schema<?> randomSchemaRef(Random random) {
+        return new Schema<>().$ref("#/components/schemas/" + schemaName(random.nextInt(Math.max(schemas, 1))));
+    }
+
+    private Content jsonContent(Schema<?> schema) {
+        return new Content().addMediaType("application/json", new MediaType().schema(schema));
+    }
+
+    private static String schemaName(int index) {
+        return "Model" + index;
+    }
+
+    private static String tagName(int index) {
+        return "tag" + index;
+    }
+}
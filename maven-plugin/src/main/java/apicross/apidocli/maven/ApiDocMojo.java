@@ -0,0 +1,245 @@
+package apicross.apidocli.maven;
+
+import apicross.apidocli.ApiDocCommand;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import io.swagger.v3.core.util.Yaml;
+import picocli.CommandLine;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Prepares single API specification from multiple sources, the same way as the {@code apidoc} command does,
+ * in the Maven process. The run is skipped when all the outputs exist, including variants, per-tag specifications
+ * and other outputs of the given options, and neither specification files, nor the files they refer to,
+ * nor parameters, nor the plugin version are changed since the outputs were built.
+ */
+@Mojo(name = "merge", defaultPhase = LifecyclePhase.GENERATE_RESOURCES, threadSafe = true)
+public class ApiDocMojo extends AbstractMojo {
+    /**
+     * Directory with specification files. All files in it take part in the up-to-date check,
+     * since specifications may refer to any of them, and so do files outside of it the specifications refer to.
+     */
+    @Parameter(required = true)
+    private File dir;
+
+    /**
+     * Specification file names, the main specification first. Format {specification file name}[#prefix]
+     */
+    @Parameter(required = true)
+    private List<String> specifications;
+
+    /**
+     * Output specification file
+     */
+    @Parameter(required = true)
+    private File output;
+
+    /**
+     * Tags for operations to be removed
+     */
+    @Parameter
+    private List<String> cutOffTags;
+
+    /**
+     * Any other options of the {@code apidoc} command, e.g. {@code --prune}
+     */
+    @Parameter
+    private List<String> options;
+
+    @Parameter(property = "apidoc.skip", defaultValue = "false")
+    private boolean skip;
+
+    /**
+     * File with fingerprint of the inputs the output specification was built from
+     */
+    @Parameter(defaultValue = "${project.build.directory}/apidoc/${mojoExecution.executionId}.fingerprint", required = true)
+    private File fingerprintFile;
+
+    @Parameter(defaultValue = "${plugin}", readonly = true)
+    private PluginDescriptor plugin;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (skip) {
+            getLog().info("Skipped");
+            return;
+        }
+
+        String[] args = arguments();
+        ApiDocCommand command = new ApiDocCommand();
+        try {
+            new CommandLine(command).setCaseInsensitiveEnumValuesAllowed(true).parseArgs(args);
+        } catch (CommandLine.ParameterException e) {
+            throw new MojoExecutionException("Invalid apidoc options: " + e.getMessage(), e);
+        }
+
+        String fingerprint;
+        try {
+            Set<Path> outputFiles = new HashSet<>();
+            for (Path outputFile : command.outputFiles()) {
+                outputFiles.add(outputFile.toAbsolutePath().normalize());
+            }
+            fingerprint = fingerprint(args, outputFiles);
+            if (outputFiles.stream().allMatch(Files::exists) && fingerprintFile.exists()
+                    && fingerprint.equals(new String(Files.readAllBytes(fingerprintFile.toPath()), StandardCharsets.UTF_8))) {
+                getLog().info("Specification " + output + " is up to date");
+                return;
+            }
+            Files.deleteIfExists(fingerprintFile.toPath());
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to check whether specification " + output + " is up to date", e);
+        }
+
+        int exitCode;
+        try {
+            Files.createDirectories(output.getAbsoluteFile().toPath().getParent());
+            exitCode = command.call();
+        } catch (Exception e) {
+            throw new MojoFailureException("Unable to build specification " + output + ": " + e.getMessage(), e);
+        }
+        if (exitCode != 0) {
+            throw new MojoFailureException("Unable to build specification " + output + ", exit code " + exitCode);
+        }
+
+        try {
+            Files.createDirectories(fingerprintFile.toPath().getParent());
+            Files.write(fingerprintFile.toPath(), fingerprint.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to write fingerprint file " + fingerprintFile, e);
+        }
+    }
+
+    private String[] arguments() {
+        List<String> args = new ArrayList<>();
+        args.add("-dir");
+        args.add(dir.getAbsolutePath());
+        args.add("-s");
+        args.addAll(specifications);
+        args.add("-o");
+        args.add(output.getAbsolutePath());
+        if (cutOffTags != null && !cutOffTags.isEmpty()) {
+            args.add("-t");
+            args.addAll(cutOffTags);
+        }
+        args.addAll(options != null ? options : Collections.emptyList());
+        return args.toArray(new String[0]);
+    }
+
+    /**
+     * @return hash of the plugin version, command arguments, and names and contents of all files in specifications
+     * directory and of the files outside of it they refer to
+     */
+    private String fingerprint(String[] args, Set<Path> outputFiles) throws IOException {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putString(plugin.getVersion(), StandardCharsets.UTF_8).putByte((byte) 0);
+        for (String arg : args) {
+            hasher.putString(arg, StandardCharsets.UTF_8).putByte((byte) 0);
+        }
+
+        Path directory = dir.toPath().toAbsolutePath().normalize();
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(directory)) {
+            files = paths.filter(Files::isRegularFile)
+                    // outputs may be written to specifications directory
+                    .filter(file -> !outputFiles.contains(file))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            putFile(hasher, directory.relativize(file).toString(), file);
+        }
+        for (Path file : externalFiles(directory, files)) {
+            putFile(hasher, file.toString(), file);
+        }
+        return hasher.hash().toString();
+    }
+
+    private static void putFile(Hasher hasher, String name, Path file) throws IOException {
+        byte[] content = Files.readAllBytes(file);
+        hasher.putString(name, StandardCharsets.UTF_8).putByte((byte) 0)
+                .putInt(content.length)
+                .putBytes(content);
+    }
+
+    /**
+     * @return files outside of specifications directory, such as {@code ../common/errors.yaml}, the given files refer
+     * to, directly or through other referenced files, in order of their absolute paths
+     */
+    private static Set<Path> externalFiles(Path directory, List<Path> files) {
+        Set<Path> externalFiles = new TreeSet<>();
+        Set<Path> visited = new HashSet<>(files);
+        Deque<Path> pending = new ArrayDeque<>(files);
+        while (!pending.isEmpty()) {
+            Path file = pending.poll();
+            for (String ref : fileRefs(file)) {
+                Path referenced = file.getParent().resolve(ref).normalize();
+                // missing files are reported by the command
+                if (Files.isRegularFile(referenced) && visited.add(referenced)) {
+                    if (!referenced.startsWith(directory)) {
+                        externalFiles.add(referenced);
+                    }
+                    pending.add(referenced);
+                }
+            }
+        }
+        return externalFiles;
+    }
+
+    /**
+     * @return file parts of the references to other local files, in the given file, if it is a specification file
+     */
+    private static Set<String> fileRefs(Path file) {
+        String fileName = file.getFileName().toString().toLowerCase();
+        if (!fileName.endsWith(".yaml") && !fileName.endsWith(".yml") && !fileName.endsWith(".json")) {
+            return Collections.emptySet();
+        }
+        JsonNode tree;
+        try {
+            // YAML mapper reads JSON files as well
+            tree = Yaml.mapper().readTree(file.toFile());
+        } catch (IOException e) {
+            // files which can't be parsed are reported by the command, if they are used
+            return Collections.emptySet();
+        }
+
+        Set<String> refs = new LinkedHashSet<>();
+        Deque<JsonNode> nodes = new ArrayDeque<>();
+        nodes.add(tree);
+        while (!nodes.isEmpty()) {
+            JsonNode node = nodes.poll();
+            JsonNode ref = node.get("$ref");
+            if (node.isObject() && ref != null && ref.isTextual()) {
+                String refFile = ref.asText().split("#", 2)[0];
+                if (!refFile.isEmpty() && !refFile.contains(":")) {
+                    refs.add(refFile);
+                }
+            }
+            node.forEach(nodes::add);
+        }
+        return refs;
+    }
+}
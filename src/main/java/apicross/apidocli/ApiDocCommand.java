@@ -1,84 +1,622 @@
 package apicross.apidocli;
 
 import apicross.apidocli.processors.AddPrefixToSchemaNameProcessor;
+import apicross.apidocli.processors.CanonicalOrderProcessor;
+import apicross.apidocli.processors.CleanUnusedModelsProcessor;
 import apicross.apidocli.processors.RemoveOperationWithTagsProcessor;
+import apicross.apidocli.processors.SlimProcessor;
 import apicross.apidocli.processors.MergeSpecificationsProcessor;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
-import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator;
+import apicross.apidocli.processors.SpecificationTraverser;
+import apicross.apidocli.processors.SplitByTagsProcessor;
+import apicross.apidocli.processors.TagIndex;
+import apicross.apidocli.processors.SpecificationVisitor;
+import apicross.apidocli.processors.ValidateReferencesProcessor;
+import apicross.apidocli.processors.VariantProcessor;
 import com.google.common.base.Preconditions;
-import io.swagger.v3.core.util.Yaml;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
 import io.swagger.v3.oas.models.OpenAPI;
-import io.swagger.v3.parser.OpenAPIV3Parser;
-import io.swagger.v3.parser.core.models.ParseOptions;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.tags.Tag;
+import io.swagger.v3.parser.OpenAPIResolver;
 import lombok.extern.slf4j.Slf4j;
 import picocli.CommandLine;
 
-import java.io.*;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.List;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 @Slf4j
-@CommandLine.Command(name = "apidoc", description = "Prepare single API specification for publication from multiple sources")
+@CommandLine.Command(name = "apidoc", description = "Prepare single API specification for publication from multiple sources",
+        subcommands = {BatchCommand.class, ServeCommand.class, DiffCommand.class})
 public class ApiDocCommand implements Callable<Integer> {
-    @CommandLine.Option(names = "-dir", required = true, description = "File directory with specification files")
+    private static final Set<String> SPECIFICATION_FILE_EXTENSIONS = ImmutableSet.of("yaml", "yml", "json");
+    private static final String SHARD_INDEX_FILE_NAME = "index.json";
+
+    @CommandLine.Spec
+    CommandLine.Model.CommandSpec commandSpec;
+    // required options are checked in call(), so subcommands can be run without them
+    @CommandLine.Option(names = "-dir", description = "File directory with specification files, required")
     String dir;
-    @CommandLine.Option(names = "-s", arity = "2..*", required = true,
-            description = "Specification file names. Format {specification file name}[#prefix], " +
+    @CommandLine.Option(names = "-s", arity = "2..*",
+            description = "Specification file names, required. Format {specification file name}[#prefix], " +
                     "where prefix - prefix to be added to the schema name, " +
                     "to prevent model names collisions from different sources")
     String[] specifications;
-    @CommandLine.Option(names = "-o", required = true, description = "Output specification file name")
+    @CommandLine.Option(names = "-o", description = "Output specification file name, required")
     String outputFileName;
     @CommandLine.Option(names = "-t", arity = "1..*", description = "Tags for operations to be removed")
     String[] cutOffTags;
+    @CommandLine.Option(names = "--threads", description = "Number of worker threads used to read and preprocess " +
+            "specifications, to walk each of them, and to merge them, defaults to the number of available processors")
+    int threads = Runtime.getRuntime().availableProcessors();
+    @CommandLine.Option(names = "--format", description = "Output specification format: ${COMPLETION-CANDIDATES}, " +
+            "defaults to ${DEFAULT-VALUE}")
+    OutputFormat outputFormat = OutputFormat.YAML;
+    @CommandLine.Option(names = "--gzip", description = "Also write gzip-compressed copy of each output file " +
+            "next to it, in the same pass")
+    boolean gzip;
+    @CommandLine.Option(names = "--cache-dir", arity = "0..1", fallbackValue = "${sys:user.home}/.cache/apidocli",
+            description = "Enables cache of parsed specifications. Optional value is a cache directory, " +
+                    "defaults to ${FALLBACK-VALUE}")
+    File cacheDir;
+    @CommandLine.Option(names = "--cache-max-size", description = "Maximum size of the parsed specifications cache, " +
+            "in megabytes, defaults to ${DEFAULT-VALUE}")
+    long cacheMaxSize = 512;
+    @CommandLine.Option(names = "--intern", description = "Intern strings and leaf schemas of the specifications, " +
+            "so equal values are held once: specifications retain less memory, and take longer to read")
+    boolean intern;
+    @CommandLine.Option(names = "--prune", description = "Remove schemas, parameters, headers, responses and " +
+            "request bodies which are not reachable from the remaining operations")
+    boolean prune;
+    @CommandLine.Option(names = "--dedupe", description = "Collapse components of the same structure and different " +
+            "names into one, and rewrite references to the rest of them")
+    boolean dedupe;
+    @CommandLine.Option(names = "--slim", description = "Strip titles, summaries, descriptions, examples and " +
+            "external documentation from the output specification, for runtime consumers such as API gateways " +
+            "and request validators, and remove components left unused, examples included")
+    boolean slim;
+    @CommandLine.Option(names = "--canonical", description = "Put components, paths and tags in order of their " +
+            "names, so the same specifications are always written the same way, and write SHA-256 digest of " +
+            "the output file next to it, with " + SpecificationWriter.DIGEST_EXTENSION + " extension appended")
+    boolean canonical;
+    @CommandLine.Option(names = "--on-conflict", description = "What to do with components of the same name and " +
+            "different structure: ${COMPLETION-CANDIDATES}, defaults to ${DEFAULT-VALUE}")
+    ConflictPolicy conflictPolicy = ConflictPolicy.WARN;
+    @CommandLine.Option(names = "--variant", converter = Variant.Converter.class, description = "Also write " +
+            "output specification variant without operations with given tags, on top of -t ones, given as " +
+            "<name>[:-t=<tag>[,<tag>...]], such as public:-t=internal,beta. Variant is written next to the output " +
+            "file, with -<name> added to its name, such as api-public.yaml. Variants are made of the output " +
+            "specification read and merged once, and share its unchanged nodes. Unlike -t, operations are removed " +
+            "once specifications are merged, so a path defined in several specifications never falls back to " +
+            "its earlier definition")
+    List<Variant> variants;
+    @CommandLine.Option(names = "--shard-dir", description = "Directory to write a self-contained specification " +
+            "for each tag to, along with " + SHARD_INDEX_FILE_NAME + " listing them")
+    File shardDir;
+    @CommandLine.Option(names = "--watch", description = "Keep running, and build output specification again " +
+            "each time specification files are changed. Only changed specification files are parsed again, while " +
+            "all specifications are bound and preprocessed again on each build, since merge and the following " +
+            "processing change them in place")
+    boolean watch;
+    @CommandLine.Option(names = "--debounce", description = "Time to wait for further specification files changes " +
+            "before the output specification is built again in watch mode, in milliseconds, defaults to ${DEFAULT-VALUE}")
+    long debounce = 500;
+    @CommandLine.Option(names = "--metrics", description = "JSON file to write wall time, allocated bytes and " +
+            "node counts of each processing phase to")
+    File metricsFile;
+
+    // set up in advance when specification files are shared with other commands
+    SpecificationReader specificationReader;
+
+    private final Metrics metrics = new Metrics();
+    // walks a single specification on several threads, null if it is walked on a single thread
+    private ForkJoinPool traversalPool;
+    // operations and tag definitions of the main specification, which are never cut off, in variants too
+    private Set<Operation> mainOperations;
+    private Set<Tag> mainTags;
+
+    /**
+     * Receives each built output specification.
+     */
+    @FunctionalInterface
+    interface SpecificationPublisher {
+        void publish(OpenAPI specification) throws Exception;
+    }
 
     @Override
     public Integer call() throws Exception {
+        checkRequiredOptions(true);
+        if (variants != null) {
+            Set<String> names = new HashSet<>();
+            for (Variant variant : variants) {
+                Preconditions.checkArgument(names.add(variant.getName()), "Duplicated variant name: %s", variant.getName());
+            }
+        }
+        return run(this::write);
+    }
+
+    /**
+     * Reads the specifications, and builds output specification once, or each time specification files
+     * are changed in watch mode.
+     */
+    Integer run(SpecificationPublisher publisher) throws Exception {
         Preconditions.checkState(specifications.length >= 2);
-        OpenAPI mainSpecification = read(filePath(specifications[0]), false);
+        Preconditions.checkArgument(threads > 0, "Number of threads must be positive");
 
-        List<OpenAPI> specificationsToBeJoined = new ArrayList<>();
+        boolean ownSpecificationReader = specificationReader == null;
+        if (ownSpecificationReader) {
+            SpecificationCache cache = cacheDir != null
+                    ? new SpecificationCache(cacheDir.toPath(), cacheMaxSize * 1024 * 1024)
+                    : null;
+            specificationReader = new SpecificationReader(cache, false, intern);
+        }
 
-        for (int i = 1; i < specifications.length; i++) {
-            OpenAPI particularSpecification = processParticularSpecification(specifications[i]);
-            specificationsToBeJoined.add(particularSpecification);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, specifications.length));
+        traversalPool = threads > 1
+                ? new ForkJoinPool(threads, metrics.forkJoinWorkerThreadFactory(), null, false)
+                : null;
+        try {
+            if (watch) {
+                // document trees are kept to be bound again, so each build merges parts of its own
+                List<JsonNode> trees = readTrees(executor, allSpecificationIndexes());
+                build(bindSpecifications(executor, trees), publisher);
+                watch(executor, trees, publisher);
+            } else {
+                build(readSpecifications(executor, allSpecificationIndexes()), publisher);
+            }
+        } finally {
+            executor.shutdownNow();
+            if (traversalPool != null) {
+                traversalPool.shutdownNow();
+            }
+            if (ownSpecificationReader) {
+                completeCache(specificationReader.getCache());
+            }
         }
 
-        merge(mainSpecification, specificationsToBeJoined);
+        return 0;
+    }
 
-        ((YAMLFactory) Yaml.mapper().getFactory()).disable(YAMLGenerator.Feature.MINIMIZE_QUOTES);
-        String specification = Yaml.pretty().writeValueAsString(mainSpecification);
+    static void completeCache(SpecificationCache cache) throws IOException {
+        if (cache != null) {
+            log.info("Parsed specifications cache {}: {} hits, {} misses", cache.getDirectory(),
+                    cache.getHits(), cache.getMisses());
+            cache.evict();
+        }
+    }
 
-        File tempFile = File.createTempFile("merged-spec", "yaml", new File(dir));
-        tempFile.deleteOnExit();
+    void checkRequiredOptions(boolean outputRequired) {
+        List<String> missingOptions = new ArrayList<>();
+        if (dir == null) {
+            missingOptions.add("'-dir=<dir>'");
+        }
+        if (outputRequired && outputFileName == null) {
+            missingOptions.add("'-o=<outputFileName>'");
+        }
+        if (specifications == null) {
+            missingOptions.add("'-s=<specifications>'");
+        }
+        if (!missingOptions.isEmpty()) {
+            throw new CommandLine.ParameterException(commandSpec.commandLine(),
+                    (missingOptions.size() == 1 ? "Missing required option: " : "Missing required options: ")
+                            + String.join(", ", missingOptions));
+        }
+    }
+
+    public static void main(String[] args) {
+        int exitCode = new CommandLine(new ApiDocCommand())
+                .setCaseInsensitiveEnumValuesAllowed(true)
+                .execute(args);
+        System.exit(exitCode);
+    }
 
-        try (Writer writer = new OutputStreamWriter(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
-            writer.write(specification);
-            writer.flush();
+    private static <T> List<T> awaitAll(List<Future<T>> futures) throws Exception {
+        List<T> outcome = new ArrayList<>(futures.size());
+        for (Future<T> future : futures) {
+            outcome.add(await(future));
         }
+        return outcome;
+    }
 
-        OpenAPI resolvedAPI = read(tempFile.getCanonicalPath(), true);
-        specification = Yaml.pretty().writeValueAsString(resolvedAPI);
+    private static <T> T await(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
 
-        File output = new File(outputFileName);
+    private List<Integer> allSpecificationIndexes() {
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < specifications.length; i++) {
+            indexes.add(i);
+        }
+        return indexes;
+    }
 
-        try (Writer writer = new OutputStreamWriter(new BufferedOutputStream(new FileOutputStream(output)))) {
-            writer.write(specification);
-            writer.flush();
+    /**
+     * Reads and preprocesses specifications with given indexes on the executor workers.
+     *
+     * @return specifications in order of given indexes
+     */
+    private List<OpenAPI> readSpecifications(ExecutorService executor, List<Integer> indexes) throws Exception {
+        List<Future<OpenAPI>> futures = new ArrayList<>();
+        for (int index : indexes) {
+            futures.add(executor.submit(() -> readSpecification(index)));
         }
+        return awaitAll(futures);
+    }
 
-        return 0;
+    /**
+     * Reads document trees of specifications with given indexes on the executor workers, so they can be bound
+     * to new specifications on each build in watch mode.
+     *
+     * @return document trees in order of given indexes
+     */
+    private List<JsonNode> readTrees(ExecutorService executor, List<Integer> indexes) throws Exception {
+        List<Future<JsonNode>> futures = new ArrayList<>();
+        for (int index : indexes) {
+            futures.add(executor.submit(() -> specificationReader.readTree(
+                    filePath(specificationFileName(specifications[index])), specificationCutOffTags(index))));
+        }
+        return awaitAll(futures);
     }
 
-    public static void main(String[] args) {
-        int exitCode = new CommandLine(new ApiDocCommand()).execute(args);
-        System.exit(exitCode);
+    /**
+     * Binds document trees of all specifications to new specifications, and preprocesses them, on the executor
+     * workers, the same way as {@link #readSpecifications(ExecutorService, List)} does.
+     */
+    private List<OpenAPI> bindSpecifications(ExecutorService executor, List<JsonNode> trees) throws Exception {
+        List<Future<OpenAPI>> futures = new ArrayList<>();
+        for (int i = 0; i < trees.size(); i++) {
+            int index = i;
+            futures.add(executor.submit(() -> bindSpecification(index, trees.get(index))));
+        }
+        return awaitAll(futures);
+    }
+
+    private OpenAPI readSpecification(int index) throws IOException {
+        String specificationFileName = specificationFileName(specifications[index]);
+        OpenAPI specification;
+        try (Metrics.Phase phase = metrics.start("read", specificationFileName)) {
+            specification = read(filePath(specificationFileName), specificationCutOffTags(index));
+            phase.count(specification);
+        }
+        return preprocess(index, specification);
+    }
+
+    private OpenAPI bindSpecification(int index, JsonNode tree) throws IOException {
+        String specificationFileName = specificationFileName(specifications[index]);
+        OpenAPI specification;
+        try (Metrics.Phase phase = metrics.start("bind", specificationFileName)) {
+            specification = specificationReader.bind(filePath(specificationFileName), tree);
+            phase.count(specification);
+        }
+        return preprocess(index, specification);
+    }
+
+    private OpenAPI preprocess(int index, OpenAPI specification) throws IOException {
+        if (index == 0) {
+            return specification;
+        }
+        return processParticularSpecification(specification, specifications[index]);
+    }
+
+    private Set<String> specificationCutOffTags(int index) {
+        // operations of the main specification are never cut off
+        return index > 0 && cutOffTags != null ? new HashSet<>(Arrays.asList(cutOffTags)) : Collections.emptySet();
+    }
+
+    /**
+     * Merges the main specification, which is the first one, with the rest of the given specifications,
+     * and publishes the outcome.
+     */
+    private void build(List<OpenAPI> parts, SpecificationPublisher publisher) throws Exception {
+        OpenAPI mainSpecification = parts.get(0);
+        if (variants != null) {
+            rememberMainSpecification(mainSpecification);
+        }
+        try (Metrics.Phase phase = metrics.start("merge", null)) {
+            int duplicates = merge(mainSpecification, parts.subList(1, parts.size()));
+            phase.count(mainSpecification).count("duplicates", duplicates);
+        }
+
+        OpenAPI resolvedAPI;
+        try (Metrics.Phase phase = metrics.start("resolve", null)) {
+            int externalComponents = new ExternalComponentsResolver(specificationReader)
+                    .resolve(mainSpecification, specificationDirectory(specifications[0]));
+            resolvedAPI = resolve(mainSpecification);
+            phase.count(resolvedAPI).count("externalComponents", externalComponents);
+        }
+
+        if (prune) {
+            try (Metrics.Phase phase = metrics.start("prune", null)) {
+                cleanUnusedModels(resolvedAPI);
+                phase.count(resolvedAPI);
+            }
+        }
+
+        try (Metrics.Phase phase = metrics.start("validate", null)) {
+            phase.count("unresolvedRefs", validateReferences(resolvedAPI));
+        }
+
+        if (slim) {
+            try (Metrics.Phase phase = metrics.start("slim", null)) {
+                new SlimProcessor(specificationReader.getInterner()).process(resolvedAPI, new SpecificationTraverser(traversalPool));
+                phase.count(resolvedAPI);
+            }
+        }
+
+        if (canonical) {
+            try (Metrics.Phase phase = metrics.start("canonicalize", null)) {
+                new CanonicalOrderProcessor().process(resolvedAPI);
+                phase.count(resolvedAPI);
+            }
+        }
+
+        publisher.publish(resolvedAPI);
+
+        if (metricsFile != null) {
+            metrics.write(metricsFile.toPath());
+        }
+        // in watch mode, each report covers a single build
+        metrics.reset();
+    }
+
+    private void write(OpenAPI specification) throws Exception {
+        try (Metrics.Phase phase = metrics.start("write", null)) {
+            Path outputFile = Paths.get(outputFileName);
+            writeOutputFile(specification, outputFile, phase);
+        }
+
+        if (variants != null) {
+            VariantProcessor processor = new VariantProcessor(specification, mainOperations, mainTags);
+            for (Variant variant : variants) {
+                try (Metrics.Phase phase = metrics.start("variant", variant.getName())) {
+                    Path variantFile = variantFile(variant.getName());
+                    writeOutputFile(processor.process(variant.getCutOffTags(), prune), variantFile, phase);
+                    log.info("Variant {} is written to {}", variant.getName(), variantFile);
+                }
+            }
+        }
+
+        if (shardDir != null) {
+            try (Metrics.Phase phase = metrics.start("shards", null)) {
+                phase.count("shards", writeShards(specification));
+            }
+        }
+    }
+
+    private void writeOutputFile(OpenAPI specification, Path outputFile, Metrics.Phase phase) throws IOException {
+        SpecificationWriter writer = new SpecificationWriter(outputFormat, gzip);
+        if (canonical) {
+            writer.writeWithDigest(specification, outputFile);
+        } else {
+            writer.write(specification, outputFile);
+        }
+        phase.count("bytes", Files.size(outputFile));
+        if (gzip) {
+            phase.count("gzipBytes", Files.size(SpecificationWriter.gzipFile(outputFile)));
+        }
+    }
+
+    /**
+     * @return files the command writes: output specification and its variants, along with their gzip-compressed
+     * copies and digests, per-tag specifications with their index, and metrics. Per-tag specifications are listed
+     * in the index, so they are known once the index is written
+     */
+    public List<Path> outputFiles() throws IOException {
+        List<Path> outputFiles = new ArrayList<>();
+        // output specification is not written when it is served
+        if (outputFileName != null) {
+            addOutputFile(outputFiles, Paths.get(outputFileName), canonical);
+        }
+        if (outputFileName != null && variants != null) {
+            for (Variant variant : variants) {
+                addOutputFile(outputFiles, variantFile(variant.getName()), canonical);
+            }
+        }
+        if (shardDir != null) {
+            Path indexFile = shardDir.toPath().resolve(SHARD_INDEX_FILE_NAME);
+            if (Files.exists(indexFile)) {
+                ShardIndex index = new ObjectMapper().readValue(indexFile.toFile(), ShardIndex.class);
+                for (ShardIndex.Shard shard : index.getShards()) {
+                    // per-tag specifications are hashed in the index
+                    addOutputFile(outputFiles, shardDir.toPath().resolve(shard.getFile()), false);
+                }
+            }
+            outputFiles.add(indexFile);
+        }
+        if (metricsFile != null) {
+            outputFiles.add(metricsFile.toPath());
+        }
+        return outputFiles;
+    }
+
+    private void addOutputFile(List<Path> outputFiles, Path specificationFile, boolean digest) {
+        outputFiles.add(specificationFile);
+        if (gzip) {
+            outputFiles.add(SpecificationWriter.gzipFile(specificationFile));
+        }
+        if (digest) {
+            outputFiles.add(SpecificationWriter.digestFile(specificationFile));
+        }
+    }
+
+    /**
+     * @return output file name with {@code -<variant name>} added before its extension
+     */
+    private Path variantFile(String variantName) {
+        Path outputFile = Paths.get(outputFileName);
+        String fileName = outputFile.getFileName().toString();
+        int extensionIndex = fileName.lastIndexOf('.');
+        String variantFileName = extensionIndex > 0
+                ? fileName.substring(0, extensionIndex) + "-" + variantName + fileName.substring(extensionIndex)
+                : fileName + "-" + variantName;
+        return outputFile.resolveSibling(variantFileName);
+    }
+
+    /**
+     * Remembers operations and tag definitions of the main specification before other specifications are merged
+     * into it, since variants never cut them off, the same way as -t never does.
+     */
+    private void rememberMainSpecification(OpenAPI mainSpecification) {
+        mainOperations = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (mainSpecification.getPaths() != null) {
+            for (PathItem pathItem : mainSpecification.getPaths().values()) {
+                mainOperations.addAll(pathItem.readOperations());
+            }
+        }
+        mainTags = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (mainSpecification.getTags() != null) {
+            mainTags.addAll(mainSpecification.getTags());
+        }
+    }
+
+    /**
+     * Builds output specification again each time specification files are changed. Document trees of the changed
+     * specifications are read again, and then the trees of all specifications are bound to new models, since models
+     * of a build are changed in place by merge, resolve and the rest of processing, and can't be merged again.
+     */
+    private void watch(ExecutorService executor, List<JsonNode> trees, SpecificationPublisher publisher) throws Exception {
+        Map<Path, List<Integer>> specificationIndexesByFile = new HashMap<>();
+        for (int i = 0; i < specifications.length; i++) {
+            specificationIndexesByFile.computeIfAbsent(watchedPath(specificationFileName(specifications[i])),
+                    file -> new ArrayList<>()).add(i);
+        }
+
+        // outputs are written relative to the working directory, and may be written to the watched one
+        Set<Path> ignoredPaths = new HashSet<>();
+        for (Path outputFile : outputFiles()) {
+            ignoredPaths.add(outputFile.toAbsolutePath().normalize());
+        }
+        if (shardDir != null) {
+            // per-tag specifications come and go with the tags
+            ignoredPaths.add(shardDir.toPath().toAbsolutePath().normalize());
+        }
+        SpecificationWatcher watcher = new SpecificationWatcher(Paths.get(dir), debounce, ignoredPaths);
+
+        watcher.watch(changedFiles -> {
+            List<Integer> changedIndexes = new ArrayList<>();
+            boolean specificationChanged = false;
+            for (Path changedFile : changedFiles) {
+                changedIndexes.addAll(specificationIndexesByFile.getOrDefault(changedFile, Collections.emptyList()));
+                // files referenced from the specifications are read again on each build, so they only trigger it
+                specificationChanged |= isSpecificationFile(changedFile);
+            }
+            if (!specificationChanged) {
+                return;
+            }
+
+            log.info("Specification files changed: {}", changedFiles);
+            List<JsonNode> changedTrees = readTrees(executor, changedIndexes);
+            for (int i = 0; i < changedIndexes.size(); i++) {
+                trees.set(changedIndexes.get(i), changedTrees.get(i));
+            }
+
+            build(bindSpecifications(executor, trees), publisher);
+            if (outputFileName != null) {
+                log.info("Specification {} is updated", outputFileName);
+            }
+        });
+    }
+
+    /**
+     * Writes per-tag specifications concurrently, and their index.
+     *
+     * @return number of written specifications
+     */
+    private int writeShards(OpenAPI specification) throws Exception {
+        TagIndex tagIndex = TagIndex.build(specification.getPaths());
+        if (tagIndex.getUntaggedOperations() > 0) {
+            log.warn("{} operations without tags are not written to any of per-tag specifications",
+                    tagIndex.getUntaggedOperations());
+        }
+        Map<String, OpenAPI> shards = new SplitByTagsProcessor().process(specification, tagIndex);
+
+        Path directory = Files.createDirectories(shardDir.toPath());
+        Set<String> fileNames = new HashSet<>();
+        List<Future<ShardIndex.Shard>> futures = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(Math.min(threads, shards.size()), 1),
+                metrics.threadFactory());
+        try {
+            for (Map.Entry<String, OpenAPI> shard : shards.entrySet()) {
+                String tag = shard.getKey();
+                String fileName = shardFileName(tag, fileNames);
+                int operations = tagIndex.operations(tag).values().stream().mapToInt(Map::size).sum();
+                futures.add(executor.submit(() -> {
+                    Path file = directory.resolve(fileName);
+                    HashCode hash = new SpecificationWriter(outputFormat, gzip).writeHashed(shard.getValue(), file);
+
+                    ShardIndex.Shard entry = new ShardIndex.Shard();
+                    entry.setTag(tag);
+                    entry.setFile(fileName);
+                    entry.setOperations(operations);
+                    entry.setSize(Files.size(file));
+                    entry.setSha256(hash.toString());
+                    return entry;
+                }));
+            }
+
+            ShardIndex index = new ShardIndex();
+            for (Future<ShardIndex.Shard> future : futures) {
+                index.getShards().add(await(future));
+            }
+            new ObjectMapper().writerWithDefaultPrettyPrinter()
+                    .writeValue(directory.resolve(SHARD_INDEX_FILE_NAME).toFile(), index);
+        } finally {
+            executor.shutdownNow();
+        }
+        return shards.size();
+    }
+
+    /**
+     * @return file name made of the tag, distinct from the already used ones
+     */
+    private String shardFileName(String tag, Set<String> usedFileNames) {
+        String baseName = tag.replaceAll("[^A-Za-z0-9._-]", "_");
+        String fileName = baseName + "." + outputFormat.getFileExtension();
+        for (int i = 2; !usedFileNames.add(fileName.toLowerCase()); i++) {
+            fileName = baseName + "-" + i + "." + outputFormat.getFileExtension();
+        }
+        return fileName;
     }
 
-    private OpenAPI processParticularSpecification(String specificationLocationWithNs) {
+    private Path watchedPath(String fileName) {
+        return Paths.get(fileName).isAbsolute()
+                ? Paths.get(fileName).normalize()
+                : Paths.get(dir, fileName).toAbsolutePath().normalize();
+    }
+
+    private static boolean isSpecificationFile(Path file) {
+        String fileName = file.getFileName().toString();
+        String extension = fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase();
+        return SPECIFICATION_FILE_EXTENSIONS.contains(extension);
+    }
+
+    private static String specificationFileName(String specificationLocationWithNs) {
+        return specificationLocationWithNs.split("#")[0];
+    }
+
+    private OpenAPI processParticularSpecification(OpenAPI particularSpecification, String specificationLocationWithNs)
+            throws IOException {
         String[] parts = specificationLocationWithNs.split("#");
 
         String specificationPath, prefix;
@@ -91,38 +629,95 @@ public class ApiDocCommand implements Callable<Integer> {
             prefix = null;
         }
 
-        OpenAPI particularSpecification = read(filePath(specificationPath), false);
+        // operations are cut off while reading, the processor removes definitions of tags left without operations
+        // and goes first, so operations it would cut off are never walked by the rest of the processors
+        List<SpecificationVisitor> preprocessors = new ArrayList<>();
+
+        if (cutOffTags != null && cutOffTags.length > 0) {
+            preprocessors.add(cutOffOperationsWithTags(cutOffTags));
+        }
 
         if (prefix != null) {
-            addPrefixToSchemaName(particularSpecification, prefix);
+            preprocessors.add(addPrefixToSchemaName(prefix));
         }
 
-        if (cutOffTags != null && cutOffTags.length > 0) {
-            cutOffOperationsWithTags(particularSpecification, cutOffTags);
+        // file references are resolved against the main specification directory once specifications are merged
+        Path directory = specificationDirectory(specificationPath);
+        if (!directory.equals(specificationDirectory(specifications[0]))) {
+            preprocessors.add(ExternalComponentsResolver.absoluteRefs(directory));
+        }
+
+        if (!preprocessors.isEmpty()) {
+            try (Metrics.Phase phase = metrics.start("preprocess", specificationPath)) {
+                SpecificationTraverser traverser = new SpecificationTraverser(traversalPool);
+                traverser.traverse(particularSpecification, preprocessors);
+                phase.count(particularSpecification).count(Metrics.REWRITTEN_REFS, traverser.getRewrittenRefs());
+            }
         }
 
         return particularSpecification;
     }
 
-    private void addPrefixToSchemaName(OpenAPI specification, String prefix) {
+    private SpecificationVisitor addPrefixToSchemaName(String prefix) {
         AddPrefixToSchemaNameProcessor processor = new AddPrefixToSchemaNameProcessor();
-        processor.process(specification, prefix);
+        return processor.visitor(prefix);
     }
 
-    private void cutOffOperationsWithTags(OpenAPI specification, String[] tags) {
+    private SpecificationVisitor cutOffOperationsWithTags(String[] tags) {
         RemoveOperationWithTagsProcessor processor = new RemoveOperationWithTagsProcessor();
-        processor.process(specification, new HashSet<>(Arrays.asList(tags)));
+        return processor.visitor(new HashSet<>(Arrays.asList(tags)));
+    }
+
+    /**
+     * @return number of removed duplicated components
+     */
+    private int merge(OpenAPI mainSpecification, List<OpenAPI> specificationsToBeJoined) {
+        MergeSpecificationsProcessor processor = new MergeSpecificationsProcessor(dedupe, traversalPool);
+        Set<String> conflicts = processor.process(mainSpecification, specificationsToBeJoined);
+
+        if (!conflicts.isEmpty()) {
+            if (conflictPolicy == ConflictPolicy.FAIL) {
+                throw new IllegalStateException("Components defined differently in merged specifications: " + conflicts);
+            }
+            for (String conflict : conflicts) {
+                log.warn("Component defined differently in merged specifications, the latest definition is kept: {}", conflict);
+            }
+        }
+
+        processor.getDuplicates().forEach((duplicate, kept) -> log.debug("Duplicated component {} is replaced by {}", duplicate, kept));
+        return processor.getDuplicates().size();
+    }
+
+    private OpenAPI resolve(OpenAPI specification) throws IOException {
+        // relative external references of all parts are resolved against specification files directory,
+        // so main specification file location is used as a location of the merged specification
+        String parentFileLocation = new File(filePath(specifications[0])).getCanonicalPath();
+        return new OpenAPIResolver(specification, null, parentFileLocation).resolve();
+    }
+
+    private void cleanUnusedModels(OpenAPI specification) {
+        CleanUnusedModelsProcessor processor = new CleanUnusedModelsProcessor();
+        new SpecificationTraverser(traversalPool).traverse(specification, processor.visitor());
+    }
+
+    /**
+     * @return number of unresolved references
+     */
+    private int validateReferences(OpenAPI specification) {
+        ValidateReferencesProcessor processor = new ValidateReferencesProcessor();
+        Set<String> unresolvedRefs = processor.process(specification, new SpecificationTraverser(traversalPool));
+        for (String unresolvedRef : unresolvedRefs) {
+            log.warn("Unresolved reference in merged specification: {}", unresolvedRef);
+        }
+        return unresolvedRefs.size();
     }
 
-    private void merge(OpenAPI mainSpecification, List<OpenAPI> specificationsToBeJoined) {
-        MergeSpecificationsProcessor processor = new MergeSpecificationsProcessor();
-        processor.process(mainSpecification, specificationsToBeJoined);
+    private OpenAPI read(String location, Set<String> cutOffTags) throws IOException {
+        return specificationReader.read(location, cutOffTags);
     }
 
-    private OpenAPI read(String location, boolean resolve) {
-        ParseOptions parseOptions = new ParseOptions();
-        parseOptions.setResolve(resolve);
-        return new OpenAPIV3Parser().read(location, null, parseOptions);
+    private Path specificationDirectory(String specificationLocationWithNs) throws IOException {
+        return new File(filePath(specificationFileName(specificationLocationWithNs))).getCanonicalFile().toPath().getParent();
     }
 
     private String filePath(String fileName) {
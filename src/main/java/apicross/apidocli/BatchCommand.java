@@ -0,0 +1,142 @@
+package apicross.apidocli;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import lombok.extern.slf4j.Slf4j;
+import picocli.CommandLine;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+@Slf4j
+@CommandLine.Command(name = "batch", description = "Prepare several API specifications in one run. " +
+        "Specification files used by several jobs are parsed once")
+public class BatchCommand implements Callable<Integer> {
+    // options of the batch run as a whole, which jobs can't set, with the reasons
+    private static final Map<String, String> UNSUPPORTED_JOB_OPTIONS = ImmutableMap.of(
+            "--watch", "jobs must complete",
+            "--threads", "each job runs on a single thread, batch --threads sets the number of concurrent jobs",
+            "--cache-dir", "jobs share the parsed specifications, batch --cache-dir sets the cache",
+            "--intern", "jobs share the parsed specifications, batch --intern sets whether they are interned");
+
+    @CommandLine.Parameters(index = "0", description = "Manifest file with jobs, in YAML or JSON format")
+    File manifestFile;
+    @CommandLine.Option(names = "--threads", description = "Number of jobs run concurrently, " +
+            "defaults to the number of available processors")
+    int threads = Runtime.getRuntime().availableProcessors();
+    @CommandLine.Option(names = "--cache-dir", arity = "0..1", fallbackValue = "${sys:user.home}/.cache/apidocli",
+            description = "Enables cache of parsed specifications. Optional value is a cache directory, " +
+                    "defaults to ${FALLBACK-VALUE}")
+    File cacheDir;
+    @CommandLine.Option(names = "--cache-max-size", description = "Maximum size of the parsed specifications cache, " +
+            "in megabytes, defaults to ${DEFAULT-VALUE}")
+    long cacheMaxSize = 512;
+    @CommandLine.Option(names = "--intern", description = "Intern strings and leaf schemas of the specifications, " +
+            "so equal values are held once: specifications retain less memory, and take longer to read")
+    boolean intern;
+
+    @Override
+    public Integer call() throws Exception {
+        Preconditions.checkArgument(threads > 0, "Number of threads must be positive");
+
+        BatchManifest manifest = new ObjectMapper(new YAMLFactory()).readValue(manifestFile, BatchManifest.class);
+        Path baseDirectory = manifestFile.getAbsoluteFile().toPath().getParent();
+
+        SpecificationCache cache = cacheDir != null
+                ? new SpecificationCache(cacheDir.toPath(), cacheMaxSize * 1024 * 1024)
+                : null;
+        SpecificationReader specificationReader = new SpecificationReader(cache, true, intern);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        int failedJobs = 0;
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < manifest.getJobs().size(); i++) {
+                BatchManifest.Job job = manifest.getJobs().get(i);
+                String jobName = jobName(job, i);
+                ApiDocCommand command = jobCommand(jobArgs(manifest, job, jobName, baseDirectory), jobName, baseDirectory);
+                results.add(executor.submit(() -> runJob(jobName, command, specificationReader)));
+            }
+
+            for (int i = 0; i < results.size(); i++) {
+                BatchManifest.Job job = manifest.getJobs().get(i);
+                try {
+                    int exitCode = results.get(i).get();
+                    if (exitCode != 0) {
+                        failedJobs++;
+                    }
+                } catch (ExecutionException e) {
+                    failedJobs++;
+                    log.error("Job {} failed", jobName(job, i), e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            ApiDocCommand.completeCache(cache);
+        }
+
+        log.info("{} of {} jobs completed", manifest.getJobs().size() - failedJobs, manifest.getJobs().size());
+        return failedJobs == 0 ? 0 : 1;
+    }
+
+    /**
+     * Parses job arguments, so that invalid jobs are reported before any of the jobs is run.
+     */
+    private static ApiDocCommand jobCommand(String[] args, String jobName, Path baseDirectory) {
+        ApiDocCommand command = new ApiDocCommand();
+        CommandLine.ParseResult parseResult = new CommandLine(command).setCaseInsensitiveEnumValuesAllowed(true)
+                .parseArgs(args);
+        for (Map.Entry<String, String> option : UNSUPPORTED_JOB_OPTIONS.entrySet()) {
+            Preconditions.checkArgument(!parseResult.hasMatchedOption(option.getKey()),
+                    "Option %s is not supported in job %s: %s", option.getKey(), jobName, option.getValue());
+        }
+        // jobs run concurrently with each other, so each job reads its specifications on a single thread
+        command.threads = 1;
+        // output paths are relative to the manifest directory, the same way as the output specification
+        if (command.metricsFile != null) {
+            command.metricsFile = baseDirectory.resolve(command.metricsFile.toPath()).toFile();
+        }
+        if (command.shardDir != null) {
+            command.shardDir = baseDirectory.resolve(command.shardDir.toPath()).toFile();
+        }
+        return command;
+    }
+
+    private Integer runJob(String jobName, ApiDocCommand command, SpecificationReader specificationReader)
+            throws Exception {
+        command.specificationReader = specificationReader;
+        Integer exitCode = command.call();
+        log.info("Job {} completed, output specification {}", jobName, command.outputFileName);
+        return exitCode;
+    }
+
+    private String[] jobArgs(BatchManifest manifest, BatchManifest.Job job, String jobName, Path baseDirectory) {
+        String dir = job.getDir() != null ? job.getDir() : manifest.getDir();
+        Preconditions.checkArgument(dir != null, "Specification files directory is not set for job %s", jobName);
+        Preconditions.checkArgument(job.getOutput() != null, "Output file is not set for job %s", jobName);
+
+        List<String> args = new ArrayList<>();
+        args.add("-dir");
+        args.add(baseDirectory.resolve(dir).toString());
+        args.add("-s");
+        args.addAll(job.getSpecifications());
+        args.add("-o");
+        args.add(baseDirectory.resolve(job.getOutput()).toString());
+        if (!job.getCutOffTags().isEmpty()) {
+            args.add("-t");
+            args.addAll(job.getCutOffTags());
+        }
+        args.addAll(job.getOptions());
+        return args.toArray(new String[0]);
+    }
+
+    private static String jobName(BatchManifest.Job job, int index) {
+        return job.getName() != null ? job.getName() : "#" + (index + 1);
+    }
+}
@@ -0,0 +1,43 @@
+package apicross.apidocli;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Jobs of the {@code batch} command. Relative paths are resolved against the manifest file directory.
+ */
+@Data
+public class BatchManifest {
+    /**
+     * File directory with specification files, used by the jobs which don't have their own one
+     */
+    private String dir;
+    private List<Job> jobs = new ArrayList<>();
+
+    @Data
+    public static class Job {
+        private String name;
+        /**
+         * Same as {@code -dir} option, defaults to manifest {@link BatchManifest#getDir() dir}
+         */
+        private String dir;
+        /**
+         * Same as {@code -s} option
+         */
+        private List<String> specifications = new ArrayList<>();
+        /**
+         * Same as {@code -o} option
+         */
+        private String output;
+        /**
+         * Same as {@code -t} option
+         */
+        private List<String> cutOffTags = new ArrayList<>();
+        /**
+         * Any other {@code apidoc} command options, e.g. {@code --format}
+         */
+        private List<String> options = new ArrayList<>();
+    }
+}
@@ -0,0 +1,15 @@
+package apicross.apidocli;
+
+/**
+ * What to do when components with the same name are defined differently in the merged specifications.
+ */
+public enum ConflictPolicy {
+    /**
+     * Stop with an error
+     */
+    FAIL,
+    /**
+     * Log a warning, the latest definition is kept
+     */
+    WARN
+}
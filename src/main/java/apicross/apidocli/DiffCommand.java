@@ -0,0 +1,86 @@
+package apicross.apidocli;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import lombok.extern.slf4j.Slf4j;
+import picocli.CommandLine;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.concurrent.Callable;
+import java.util.zip.GZIPInputStream;
+
+@Slf4j
+@CommandLine.Command(name = "diff", description = "Compare two output specifications, and report added, removed " +
+        "and changed operations and components in JSON format. Order of map entries is not taken into account")
+public class DiffCommand implements Callable<Integer> {
+    @CommandLine.Parameters(index = "0", description = "Base specification file, such as the last published one")
+    File baseFile;
+    @CommandLine.Parameters(index = "1", description = "Revised specification file")
+    File revisionFile;
+    @CommandLine.Option(names = "-o", description = "Report file name, the report is printed to standard output " +
+            "if not set")
+    File reportFile;
+
+    @Override
+    public Integer call() throws Exception {
+        // the report may be printed to standard output
+        LogbackConfigurator.logToStandardError();
+
+        SpecificationHashes base = SpecificationHashes.of(readTree(baseFile));
+        SpecificationHashes revision = SpecificationHashes.of(readTree(revisionFile));
+        DiffReport report = base.diff(revision);
+
+        if (reportFile != null) {
+            new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(reportFile, report);
+            log.info("{} operations and {} components are changed, report {} is written",
+                    count(report.getOperations()), count(report.getComponents()), reportFile);
+        } else {
+            // logging goes to standard error, so the output can be piped
+            System.out.println(new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(report));
+        }
+        return 0;
+    }
+
+    private static int count(DiffReport.Changes changes) {
+        return changes.getAdded().size() + changes.getRemoved().size() + changes.getChanged().size();
+    }
+
+    /**
+     * Reads the document tree in any of output formats, by the file extension; gzip-compressed files are
+     * recognized by {@value SpecificationWriter#GZIP_EXTENSION} extension.
+     */
+    private static JsonNode readTree(File file) throws IOException {
+        String fileName = file.getName().toLowerCase();
+        boolean gzip = fileName.endsWith(SpecificationWriter.GZIP_EXTENSION);
+        if (gzip) {
+            fileName = fileName.substring(0, fileName.length() - SpecificationWriter.GZIP_EXTENSION.length());
+        }
+        try (InputStream inputStream = gzip
+                ? new GZIPInputStream(Files.newInputStream(file.toPath()), 64 * 1024)
+                : new BufferedInputStream(Files.newInputStream(file.toPath()), 64 * 1024)) {
+            return new ObjectMapper(factory(fileName)).readTree(inputStream);
+        }
+    }
+
+    private static JsonFactory factory(String fileName) {
+        String extension = fileName.substring(fileName.lastIndexOf('.') + 1);
+        switch (extension) {
+            case "json":
+                return new JsonFactory();
+            case "smile":
+                return new SmileFactory();
+            case "cbor":
+                return new CBORFactory();
+            default:
+                return new YAMLFactory();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package apicross.apidocli;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Differences between two specifications, found by {@link SpecificationHashes}.
+ */
+@Data
+public class DiffReport {
+    private boolean identical;
+    /**
+     * Top-level sections other than paths and components, such as info or servers
+     */
+    private Changes sections;
+    /**
+     * Operations as HTTP method followed by path, such as {@code GET /orders}
+     */
+    private Changes operations;
+    /**
+     * Components as internal references, such as {@code #/components/schemas/Order}
+     */
+    private Changes components;
+
+    @Data
+    public static class Changes {
+        private List<String> added = new ArrayList<>();
+        private List<String> removed = new ArrayList<>();
+        private List<String> changed = new ArrayList<>();
+
+        @JsonIgnore
+        public boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+        }
+    }
+}
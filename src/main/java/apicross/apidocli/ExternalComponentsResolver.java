@@ -0,0 +1,207 @@
+package apicross.apidocli;
+
+import apicross.apidocli.processors.ComponentType;
+import apicross.apidocli.processors.SpecificationInterner;
+import apicross.apidocli.processors.SpecificationTraverser;
+import apicross.apidocli.processors.SpecificationVisitor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.swagger.v3.core.util.Json;
+import io.swagger.v3.oas.models.Components;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.parser.util.OpenAPIDeserializer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pulls components referenced from other files, such as {@code common/errors.yaml#/components/schemas/Problem},
+ * into the specification, and points the references to them. Each referenced component is pulled in once, under
+ * a single name, however many merged specifications refer to it; files are read through
+ * {@link SpecificationReader#readExternalTree(Path)}, so each of them is parsed once.
+ * <p>
+ * Component keeps the name it has in its file, with {@code _1}, {@code _2}, ... suffix if the name is already taken,
+ * the same way as swagger resolver names them. Remote references, and references to anything but components,
+ * are left to swagger resolver.
+ */
+public class ExternalComponentsResolver {
+    private final SpecificationReader specificationReader;
+    // internal references of the pulled in components by canonical external references to them
+    private final Map<String, String> pulledIn = new HashMap<>();
+    private final Map<ComponentType, Map<String, Object>> added = new EnumMap<>(ComponentType.class);
+    // file content is checked once per resolve
+    private final Map<String, JsonNode> trees = new HashMap<>();
+    private Components components;
+
+    public ExternalComponentsResolver(SpecificationReader specificationReader) {
+        this.specificationReader = specificationReader;
+    }
+
+    /**
+     * @param directory directory relative file references of the specification are resolved against
+     * @return number of the pulled in components
+     */
+    public int resolve(OpenAPI specification, Path directory) {
+        components = specification.getComponents() != null ? specification.getComponents() : new Components();
+        // components are added once the walk is over, since the walk iterates over them
+        new SpecificationTraverser().traverse(specification, new Visitor(directory, null));
+
+        int count = 0;
+        for (Map.Entry<ComponentType, Map<String, Object>> section : added.entrySet()) {
+            Map<String, Object> existing = section.getKey().get(components);
+            Map<String, Object> outcome = existing != null ? existing : new LinkedHashMap<>();
+            outcome.putAll(section.getValue());
+            section.getKey().set(components, outcome);
+            count += section.getValue().size();
+        }
+        if (count > 0) {
+            specification.setComponents(components);
+        }
+        return count;
+    }
+
+    /**
+     * @return visitor which makes relative file references absolute, so they point to the same files once
+     * the specification is merged with specifications from other directories
+     */
+    public static SpecificationVisitor absoluteRefs(Path directory) {
+        return new SpecificationVisitor() {
+            @Override
+            public String visitRef(ComponentType type, String ref) {
+                int pointerIndex = ref.indexOf('#');
+                String file = pointerIndex < 0 ? ref : ref.substring(0, pointerIndex);
+                if (file.isEmpty() || isRemote(file)) {
+                    return ref;
+                }
+                return SpecificationInterner.intern(canonicalPath(directory.resolve(file)) + ref.substring(file.length()));
+            }
+
+            @Override
+            public SpecificationVisitor fork() {
+                return this;
+            }
+        };
+    }
+
+    private String pullIn(String file, String pointer, ComponentType type) {
+        String externalRef = file + pointer;
+        String internalRef = pulledIn.get(externalRef);
+        if (internalRef != null) {
+            return internalRef;
+        }
+
+        JsonNode node = trees.computeIfAbsent(file, this::readTree).at(pointer.substring(1));
+        if (node.isMissingNode()) {
+            throw new IllegalArgumentException("Unable to resolve reference " + externalRef);
+        }
+        String name = uniqueName(type, type.componentName(pointer));
+        Object component = bind(file, type, name, node);
+        if (component == null) {
+            throw new IllegalArgumentException("Unable to read " + type.getSectionName() + " component " + externalRef);
+        }
+
+        internalRef = SpecificationInterner.intern(type.ref(name));
+        // registered before its own references are walked, so cyclic references end up here
+        pulledIn.put(externalRef, internalRef);
+        added.computeIfAbsent(type, t -> new LinkedHashMap<>()).put(name, component);
+
+        // references of the component are relative to its file
+        Map<String, Object> section = new LinkedHashMap<>();
+        section.put(name, component);
+        Components componentHolder = new Components();
+        type.set(componentHolder, section);
+        new SpecificationTraverser().traverse(new OpenAPI().components(componentHolder),
+                new Visitor(Paths.get(file).getParent(), file));
+        return internalRef;
+    }
+
+    /**
+     * Binds the component the same way as the components of the specifications are bound, by swagger parser
+     * deserializer, through the document holding nothing but the component: Jackson binding of swagger models
+     * loses some of the values, such as schemas without type, which end up as objects.
+     */
+    private Object bind(String file, ComponentType type, String name, JsonNode node) {
+        ObjectNode document = Json.mapper().createObjectNode();
+        document.set("openapi", trees.get(file).get("openapi"));
+        document.putObject("components").putObject(type.getSectionName()).set(name, node);
+        OpenAPI holder = new OpenAPIDeserializer().deserialize(document, file).getOpenAPI();
+        Map<String, Object> section = holder != null ? type.get(holder.getComponents()) : null;
+        return section != null ? section.get(name) : null;
+    }
+
+    private JsonNode readTree(String file) {
+        try {
+            return specificationReader.readExternalTree(Paths.get(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read " + file, e);
+        }
+    }
+
+    private String uniqueName(ComponentType type, String name) {
+        String outcome = name;
+        for (int i = 1; isTaken(type, outcome); i++) {
+            outcome = name + "_" + i;
+        }
+        return outcome;
+    }
+
+    private boolean isTaken(ComponentType type, String name) {
+        Map<String, Object> existing = type.get(components);
+        Map<String, Object> addedSection = added.get(type);
+        return (existing != null && existing.containsKey(name)) || (addedSection != null && addedSection.containsKey(name));
+    }
+
+    private static boolean isRemote(String file) {
+        return file.startsWith("http:") || file.startsWith("https:");
+    }
+
+    private static String canonicalPath(Path file) {
+        try {
+            return file.toRealPath().toString();
+        } catch (IOException e) {
+            // missing files are reported once they are read
+            return file.toAbsolutePath().normalize().toString();
+        }
+    }
+
+    private class Visitor implements SpecificationVisitor {
+        private final Path directory;
+        // canonical path of the file walked components come from, null for the specification itself
+        private final String file;
+
+        Visitor(Path directory, String file) {
+            this.directory = directory;
+            this.file = file;
+        }
+
+        @Override
+        public String visitRef(ComponentType type, String ref) {
+            int pointerIndex = ref.indexOf('#');
+            String refFile = pointerIndex < 0 ? ref : ref.substring(0, pointerIndex);
+            String pointer = ref.substring(refFile.length());
+            if (refFile.isEmpty()) {
+                if (file == null) {
+                    return ref;
+                }
+                // local reference of the pulled in component points to its own file
+                refFile = file;
+            } else if (isRemote(refFile)) {
+                return ref;
+            } else {
+                refFile = canonicalPath(directory.resolve(refFile));
+            }
+
+            ComponentType pointerType = ComponentType.ofRef(pointer);
+            if (pointerType == null || pointerType.componentName(pointer).contains("/")) {
+                return SpecificationInterner.intern(refFile + pointer);
+            }
+            return pullIn(refFile, pointer, pointerType);
+        }
+    }
+}
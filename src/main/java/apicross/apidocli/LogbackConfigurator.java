@@ -0,0 +1,115 @@
+package apicross.apidocli;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.Configurator;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.AppenderBase;
+import ch.qos.logback.core.ConsoleAppender;
+import ch.qos.logback.core.Context;
+import ch.qos.logback.core.spi.ContextAwareBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+
+/**
+ * Logging configuration, set up in code, so no XML configuration has to be parsed on each start. The console
+ * appender, along with its pattern layout, is set up lazily, on the first event logged.
+ * <p>
+ * Logback uses this configuration when no configuration file is found, so it can still be overridden with
+ * a {@code logback.xml} put on the class path ahead of the application jar, or with the
+ * {@code logback.configurationFile} system property, such as {@code -Dlogback.configurationFile=my-logback.xml}.
+ */
+public class LogbackConfigurator extends ContextAwareBase implements Configurator {
+    private static final String PATTERN = "%d{HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n";
+    private static final String STANDARD_OUTPUT = "System.out";
+    private static final String STANDARD_ERROR = "System.err";
+
+    @Override
+    public void configure(LoggerContext context) {
+        LazyConsoleAppender appender = new LazyConsoleAppender();
+        appender.setContext(context);
+        appender.setName("STDOUT");
+        appender.start();
+
+        context.getLogger("io.swagger.v3.parser").setLevel(Level.INFO);
+
+        ch.qos.logback.classic.Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.DEBUG);
+        root.addAppender(appender);
+    }
+
+    /**
+     * Sends console logging to the standard error stream, so the standard output is left for the command output,
+     * such as a report to be piped.
+     */
+    public static void logToStandardError() {
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext)) {
+            return;
+        }
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        Iterator<Appender<ILoggingEvent>> appenders = context.getLogger(Logger.ROOT_LOGGER_NAME).iteratorForAppenders();
+        while (appenders.hasNext()) {
+            Appender<ILoggingEvent> appender = appenders.next();
+            if (appender instanceof LazyConsoleAppender) {
+                ((LazyConsoleAppender) appender).setTarget(STANDARD_ERROR);
+            } else if (appender instanceof ConsoleAppender) {
+                // target stream is picked on start
+                appender.stop();
+                ((ConsoleAppender<ILoggingEvent>) appender).setTarget(STANDARD_ERROR);
+                appender.start();
+            }
+        }
+    }
+
+    private static ConsoleAppender<ILoggingEvent> consoleAppender(Context context, String name, String target) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+
+        ConsoleAppender<ILoggingEvent> appender = new ConsoleAppender<>();
+        appender.setContext(context);
+        appender.setName(name);
+        appender.setTarget(target);
+        appender.setEncoder(encoder);
+        appender.start();
+        return appender;
+    }
+
+    /**
+     * Console appender which sets up the console appender it delegates to on the first event, so runs which log
+     * nothing don't set it up at all. Events are appended one at a time, see {@link AppenderBase#doAppend}.
+     */
+    private static class LazyConsoleAppender extends AppenderBase<ILoggingEvent> {
+        private String target = STANDARD_OUTPUT;
+        private ConsoleAppender<ILoggingEvent> delegate;
+
+        synchronized void setTarget(String target) {
+            this.target = target;
+            if (delegate != null) {
+                delegate.stop();
+                delegate = null;
+            }
+        }
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            if (delegate == null) {
+                delegate = consoleAppender(getContext(), getName(), target);
+            }
+            delegate.doAppend(event);
+        }
+
+        @Override
+        public synchronized void stop() {
+            if (delegate != null) {
+                delegate.stop();
+            }
+            super.stop();
+        }
+    }
+}
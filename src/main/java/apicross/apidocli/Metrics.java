@@ -0,0 +1,232 @@
+package apicross.apidocli;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.PathItem;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wall time, allocated bytes and node counts of the specification processing phases. Phases are published as
+ * flight recorder events, when the flight recorder is available, and can be written as a JSON report.
+ * Phases of different specifications may be recorded concurrently.
+ * <p>
+ * Allocated bytes of a phase are summed over the thread it runs on and the worker threads of the pools made
+ * with {@link #threadFactory()} and {@link #forkJoinWorkerThreadFactory()}, so work handed over to them is counted.
+ * Concurrent phases sharing the workers, such as preprocessing of different specifications, count allocations
+ * of each other's workers as well.
+ */
+@Slf4j
+public class Metrics {
+    public static final String PATHS = "paths";
+    public static final String OPERATIONS = "operations";
+    public static final String SCHEMAS = "schemas";
+    public static final String REWRITTEN_REFS = "rewrittenRefs";
+
+    private static final boolean FLIGHT_RECORDER_AVAILABLE = isClassAvailable("jdk.jfr.Event");
+    private static final com.sun.management.ThreadMXBean THREADS = allocationTrackingThreadMXBean();
+
+    private final List<Phase> phases = Collections.synchronizedList(new ArrayList<>());
+    private final Set<Thread> workerThreads = ConcurrentHashMap.newKeySet();
+    private long startNanos = System.nanoTime();
+
+    /**
+     * Starts the phase, which is completed by {@link Phase#close()} on the same thread.
+     *
+     * @param specification specification processed in the phase, or null for the phases of the merged specification
+     */
+    public Phase start(String name, String specification) {
+        return new Phase(name, specification);
+    }
+
+    /**
+     * Forgets recorded phases, so the next report covers only phases started after this call.
+     */
+    public void reset() {
+        phases.clear();
+        startNanos = System.nanoTime();
+    }
+
+    public void write(Path file) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("wallTimeMillis", millis(System.nanoTime() - startNanos));
+        synchronized (phases) {
+            report.put("phases", new ArrayList<>(phases));
+        }
+        new ObjectMapper()
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(file.toFile(), report);
+    }
+
+    /**
+     * @return factory of the worker threads which allocations are counted in the phases
+     */
+    public ThreadFactory threadFactory() {
+        ThreadFactory threadFactory = Executors.defaultThreadFactory();
+        return runnable -> registered(threadFactory.newThread(runnable));
+    }
+
+    /**
+     * @return factory of the fork join pool worker threads which allocations are counted in the phases
+     */
+    public ForkJoinPool.ForkJoinWorkerThreadFactory forkJoinWorkerThreadFactory() {
+        return pool -> registered(ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool));
+    }
+
+    private <T extends Thread> T registered(T thread) {
+        workerThreads.add(thread);
+        return thread;
+    }
+
+    /**
+     * @return bytes allocated so far by the current thread and the live worker threads, by thread ids,
+     * or {@code null} when allocated memory tracking isn't supported by the JVM
+     */
+    private Map<Long, Long> allocatedBytes() {
+        if (THREADS == null) {
+            return null;
+        }
+        workerThreads.removeIf(thread -> !thread.isAlive());
+        Set<Long> threadIds = new LinkedHashSet<>();
+        threadIds.add(Thread.currentThread().getId());
+        for (Thread thread : workerThreads) {
+            threadIds.add(thread.getId());
+        }
+        long[] ids = threadIds.stream().mapToLong(Long::longValue).toArray();
+        long[] bytes = THREADS.getThreadAllocatedBytes(ids);
+        Map<Long, Long> allocatedBytes = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            // threads terminated in the meantime are reported as -1
+            if (bytes[i] >= 0) {
+                allocatedBytes.put(ids[i], bytes[i]);
+            }
+        }
+        return allocatedBytes;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static com.sun.management.ThreadMXBean allocationTrackingThreadMXBean() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemoryEnabled()) {
+            return (com.sun.management.ThreadMXBean) threads;
+        }
+        return null;
+    }
+
+    private static boolean isClassAvailable(String className) {
+        try {
+            Class.forName(className, false, Metrics.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    public class Phase implements AutoCloseable {
+        @Getter
+        private final String name;
+        @Getter
+        private final String specification;
+        @Getter
+        private final String thread = Thread.currentThread().getName();
+        @Getter
+        private final Map<String, Long> counts = new LinkedHashMap<>();
+        @Getter
+        private double wallTimeMillis;
+        // -1 when allocated memory tracking isn't supported by the JVM
+        @Getter
+        private long allocatedBytes;
+
+        private final long startNanos = System.nanoTime();
+        private final Map<Long, Long> startAllocatedBytes = allocatedBytes();
+        private final PhaseEvent event;
+
+        private Phase(String name, String specification) {
+            this.name = name;
+            this.specification = specification;
+            if (FLIGHT_RECORDER_AVAILABLE) {
+                event = new PhaseEvent();
+                event.begin();
+            } else {
+                event = null;
+            }
+        }
+
+        public Phase count(String counter, long value) {
+            counts.put(counter, value);
+            return this;
+        }
+
+        /**
+         * Counts paths, operations and component schemas of the specification.
+         */
+        public Phase count(OpenAPI specification) {
+            long paths = 0, operations = 0;
+            if (specification.getPaths() != null) {
+                for (PathItem pathItem : specification.getPaths().values()) {
+                    paths++;
+                    operations += pathItem.readOperations().size();
+                }
+            }
+            count(PATHS, paths);
+            count(OPERATIONS, operations);
+            boolean hasSchemas = specification.getComponents() != null && specification.getComponents().getSchemas() != null;
+            return count(SCHEMAS, hasSchemas ? specification.getComponents().getSchemas().size() : 0);
+        }
+
+        /**
+         * @return bytes allocated since the phase start; threads started since then allocated all of their bytes
+         * during the phase, and allocations of threads terminated since then are lost
+         */
+        private long allocatedBytesSince(Map<Long, Long> endAllocatedBytes) {
+            long bytes = 0;
+            for (Map.Entry<Long, Long> thread : endAllocatedBytes.entrySet()) {
+                bytes += thread.getValue() - startAllocatedBytes.getOrDefault(thread.getKey(), 0L);
+            }
+            return bytes;
+        }
+
+        @Override
+        public void close() {
+            Map<Long, Long> endAllocatedBytes = allocatedBytes();
+            wallTimeMillis = millis(System.nanoTime() - startNanos);
+            allocatedBytes = startAllocatedBytes != null ? allocatedBytesSince(endAllocatedBytes) : -1;
+            phases.add(this);
+
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.phase = name;
+                    event.specification = specification;
+                    event.allocatedBytes = allocatedBytes;
+                    event.paths = counts.getOrDefault(PATHS, 0L);
+                    event.operations = counts.getOrDefault(OPERATIONS, 0L);
+                    event.schemas = counts.getOrDefault(SCHEMAS, 0L);
+                    event.rewrittenRefs = counts.getOrDefault(REWRITTEN_REFS, 0L);
+                    event.commit();
+                }
+            }
+
+            log.debug("Phase {} of {} took {} ms, allocated {} bytes, {}", name,
+                    specification != null ? specification : "merged specification", wallTimeMillis, allocatedBytes, counts);
+        }
+    }
+}
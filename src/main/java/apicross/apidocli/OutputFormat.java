@@ -0,0 +1,85 @@
+package apicross.apidocli;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator;
+import io.swagger.v3.core.util.Json;
+import io.swagger.v3.core.util.Yaml;
+import io.swagger.v3.oas.models.OpenAPI;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public enum OutputFormat {
+    YAML("yaml", "application/yaml") {
+        @Override
+        void write(OpenAPI specification, OutputStream outputStream) throws IOException {
+            Yaml.pretty().writeValue(outputStream, specification);
+        }
+    },
+    JSON("json", "application/json") {
+        @Override
+        void write(OpenAPI specification, OutputStream outputStream) throws IOException {
+            Json.pretty().writeValue(outputStream, specification);
+        }
+    },
+    MINIFIED_JSON("json", "application/json") {
+        @Override
+        void write(OpenAPI specification, OutputStream outputStream) throws IOException {
+            Json.mapper().writer().writeValue(outputStream, specification);
+        }
+    },
+    SMILE("smile", "application/x-jackson-smile") {
+        private final JsonFactory factory = new SmileFactory();
+
+        @Override
+        void write(OpenAPI specification, OutputStream outputStream) throws IOException {
+            writeBinary(factory, specification, outputStream);
+        }
+    },
+    CBOR("cbor", "application/cbor") {
+        private final JsonFactory factory = new CBORFactory();
+
+        @Override
+        void write(OpenAPI specification, OutputStream outputStream) throws IOException {
+            writeBinary(factory, specification, outputStream);
+        }
+    };
+
+    static {
+        // swagger YAML mapper is shared, so it is configured once, before any of the outputs is written
+        ((YAMLFactory) Yaml.mapper().getFactory()).disable(YAMLGenerator.Feature.MINIMIZE_QUOTES);
+    }
+
+    private final String fileExtension;
+    private final String mediaType;
+
+    OutputFormat(String fileExtension, String mediaType) {
+        this.fileExtension = fileExtension;
+        this.mediaType = mediaType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    abstract void write(OpenAPI specification, OutputStream outputStream) throws IOException;
+
+    /**
+     * Swagger models need the serializers of swagger JSON mapper, which is bound to the text JSON factory,
+     * so binary formats drive the same mapper through a generator of their own factory.
+     */
+    private static void writeBinary(JsonFactory factory, OpenAPI specification, OutputStream outputStream)
+            throws IOException {
+        try (JsonGenerator generator = factory.createGenerator(outputStream)) {
+            Json.mapper().writer().writeValue(generator, specification);
+        }
+    }
+}
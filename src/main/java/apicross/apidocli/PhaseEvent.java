@@ -0,0 +1,28 @@
+package apicross.apidocli;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event of a single specification processing phase.
+ */
+@Name("apicross.apidocli.Phase")
+@Label("Specification Processing Phase")
+@Category("API Doc CLI")
+@StackTrace(false)
+class PhaseEvent extends Event {
+    @Label("Phase")
+    String phase;
+    @Label("Specification")
+    String specification;
+    @Label("Allocated")
+    @DataAmount
+    long allocatedBytes;
+    @Label("Paths")
+    long paths;
+    @Label("Operations")
+    long operations;
+    @Label("Schemas")
+    long schemas;
+    @Label("Rewritten References")
+    long rewrittenRefs;
+}
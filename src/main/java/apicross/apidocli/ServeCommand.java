@@ -0,0 +1,41 @@
+package apicross.apidocli;
+
+import com.google.common.base.Preconditions;
+import picocli.CommandLine;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+
+@CommandLine.Command(name = "serve", description = "Serve output specification over local HTTP port instead of " +
+        "writing it. Specification files and processing options are given to the main command, and -o is not used")
+public class ServeCommand implements Callable<Integer> {
+    @CommandLine.ParentCommand
+    ApiDocCommand parent;
+    @CommandLine.Option(names = "--host", description = "Host name or address to listen on, defaults to ${DEFAULT-VALUE}")
+    String host = "localhost";
+    @CommandLine.Option(names = "--port", description = "Port to listen on, defaults to ${DEFAULT-VALUE}")
+    int port = 8080;
+    @CommandLine.Option(names = "--slice-cache-size", description = "Maximum number of specification slices " +
+            "requested with ?tags= kept in memory, defaults to ${DEFAULT-VALUE}")
+    long sliceCacheSize = 64;
+
+    @Override
+    public Integer call() throws Exception {
+        parent.checkRequiredOptions(false);
+        Preconditions.checkArgument(parent.threads > 0, "Number of threads must be positive");
+
+        SpecificationServer server = new SpecificationServer(new InetSocketAddress(host, port), parent.outputFormat,
+                sliceCacheSize, parent.threads);
+        server.start();
+        try {
+            // requests are answered with 503 until the specification is built for the first time
+            parent.run(server::update);
+            // the server keeps running on its own threads until the process is stopped
+            new CountDownLatch(1).await();
+        } finally {
+            server.stop();
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,32 @@
+package apicross.apidocli;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Index of the per-tag specifications, written next to them.
+ */
+@Data
+public class ShardIndex {
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+        private String tag;
+        /**
+         * File name, relative to the index file directory
+         */
+        private String file;
+        private int operations;
+        /**
+         * File size in bytes
+         */
+        private long size;
+        /**
+         * Hex encoded SHA-256 hash of the file content
+         */
+        private String sha256;
+    }
+}
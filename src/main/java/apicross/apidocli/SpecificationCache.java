@@ -0,0 +1,137 @@
+package apicross.apidocli;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import io.swagger.v3.parser.core.models.ParseOptions;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of parsed specifications. Entries are keyed by specification file content hash and parse options,
+ * and hold the parsed specification document tree in Smile binary form, so unchanged specifications
+ * are bound to the model without YAML parsing.
+ * Total size of the cache is bounded, least recently used entries are evicted first.
+ */
+@Slf4j
+public class SpecificationCache {
+    // must be changed on any change of the entry format
+    private static final String FORMAT_VERSION = "1";
+    private static final String ENTRY_SUFFIX = ".smile";
+
+    private final Path directory;
+    private final long maxSizeBytes;
+    private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    public SpecificationCache(Path directory, long maxSizeBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    /**
+     * @return specification document tree, loaded from the cache or parsed and stored to the cache
+     */
+    public JsonNode readTree(Path location, ParseOptions parseOptions) throws IOException {
+        byte[] content = Files.readAllBytes(location);
+        Path entry = directory.resolve(key(content, parseOptions) + ENTRY_SUFFIX);
+
+        if (Files.exists(entry)) {
+            try {
+                JsonNode tree = load(entry);
+                Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+                hits.incrementAndGet();
+                return tree;
+            } catch (IOException e) {
+                log.warn("Unable to load cached specification {} from {}, it will be parsed again", location, entry, e);
+            }
+        }
+
+        misses.incrementAndGet();
+        JsonNode tree = SpecificationReader.parseTree(content);
+        store(entry, tree);
+        return tree;
+    }
+
+    /**
+     * Removes least recently used entries until total size of the cache fits into its bound.
+     */
+    public void evict() throws IOException {
+        List<Path> entries;
+        try (Stream<Path> files = Files.list(directory)) {
+            entries = files.filter(file -> file.getFileName().toString().endsWith(ENTRY_SUFFIX))
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+
+        Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+        for (Path entry : entries) {
+            attributes.put(entry, Files.readAttributes(entry, BasicFileAttributes.class));
+        }
+        entries.sort(Comparator.comparing((Path entry) -> attributes.get(entry).lastModifiedTime()).reversed());
+
+        long size = 0;
+        for (Path entry : entries) {
+            size += attributes.get(entry).size();
+            if (size > maxSizeBytes) {
+                Files.deleteIfExists(entry);
+                log.debug("Evicted cached specification {}", entry);
+            }
+        }
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private String key(byte[] content, ParseOptions parseOptions) {
+        Hasher hasher = Hashing.sha256().newHasher()
+                .putString(FORMAT_VERSION, StandardCharsets.UTF_8)
+                .putBoolean(parseOptions.isResolve())
+                .putBoolean(parseOptions.isResolveFully())
+                .putBoolean(parseOptions.isResolveCombinators())
+                .putBoolean(parseOptions.isFlatten())
+                .putBoolean(parseOptions.isFlattenComposedSchemas())
+                .putBoolean(parseOptions.isCamelCaseFlattenNaming())
+                .putBoolean(parseOptions.isSkipMatches());
+        return hasher.putBytes(content).hash().toString();
+    }
+
+    private JsonNode load(Path entry) throws IOException {
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(entry))) {
+            return smileMapper.readTree(inputStream);
+        }
+    }
+
+    private void store(Path entry, JsonNode tree) throws IOException {
+        // entry is written aside and then moved, so concurrent readers never see partially written entry
+        Path temporaryEntry = Files.createTempFile(directory, entry.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(temporaryEntry))) {
+                smileMapper.writeValue(outputStream, tree);
+            }
+            Files.move(temporaryEntry, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryEntry);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package apicross.apidocli;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Merkle hashes of a specification document tree: one per top-level section, per operation and per component.
+ * Hash of a node is made of hashes of its children, so each node is hashed once, and equal hashes of two subtrees
+ * mean the subtrees are equal. Object fields are hashed in order of their names, since order of map entries
+ * carries no meaning in specifications, while order of array elements does.
+ */
+public final class SpecificationHashes {
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+    private static final Set<String> HTTP_METHODS = ImmutableSet.of("get", "put", "post", "delete", "options",
+            "head", "patch", "trace");
+    private static final String COMPONENTS_REF_PREFIX = "#/components/";
+
+    private final Map<String, HashCode> sections = new HashMap<>();
+    private final Map<String, HashCode> operations = new HashMap<>();
+    private final Map<String, HashCode> components = new HashMap<>();
+
+    private SpecificationHashes() {
+    }
+
+    public static SpecificationHashes of(JsonNode specification) {
+        SpecificationHashes hashes = new SpecificationHashes();
+        for (Iterator<Map.Entry<String, JsonNode>> it = specification.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> section = it.next();
+            switch (section.getKey()) {
+                case "paths":
+                    hashes.addOperations(section.getValue());
+                    break;
+                case "components":
+                    hashes.addComponents(section.getValue());
+                    break;
+                default:
+                    hashes.sections.put(section.getKey(), hash(section.getValue()));
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * Operation hash covers fields of its path item shared by all its operations, such as path parameters,
+     * so change of them is a change of each operation of the path.
+     */
+    private void addOperations(JsonNode paths) {
+        for (Iterator<Map.Entry<String, JsonNode>> it = paths.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> path = it.next();
+            Map<String, JsonNode> pathOperations = new TreeMap<>();
+            Hasher shared = HASH_FUNCTION.newHasher();
+            for (String field : sortedFieldNames(path.getValue())) {
+                JsonNode value = path.getValue().get(field);
+                if (HTTP_METHODS.contains(field)) {
+                    pathOperations.put(field, value);
+                } else {
+                    putString(shared, field).putBytes(hash(value).asBytes());
+                }
+            }
+            byte[] sharedHash = shared.hash().asBytes();
+            for (Map.Entry<String, JsonNode> operation : pathOperations.entrySet()) {
+                HashCode hash = HASH_FUNCTION.newHasher()
+                        .putBytes(sharedHash)
+                        .putBytes(hash(operation.getValue()).asBytes())
+                        .hash();
+                operations.put(operation.getKey().toUpperCase() + " " + path.getKey(), hash);
+            }
+        }
+    }
+
+    private void addComponents(JsonNode components) {
+        for (Iterator<Map.Entry<String, JsonNode>> sectionsIt = components.fields(); sectionsIt.hasNext(); ) {
+            Map.Entry<String, JsonNode> section = sectionsIt.next();
+            if (!section.getValue().isObject()) {
+                continue;
+            }
+            for (Iterator<Map.Entry<String, JsonNode>> it = section.getValue().fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> component = it.next();
+                this.components.put(COMPONENTS_REF_PREFIX + section.getKey() + "/" + component.getKey(),
+                        hash(component.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Compares this specification with its revision. Only hashes are compared, so unchanged operations
+     * and components are skipped without walking them.
+     */
+    public DiffReport diff(SpecificationHashes revision) {
+        DiffReport report = new DiffReport();
+        report.setSections(diff(sections, revision.sections));
+        report.setOperations(diff(operations, revision.operations));
+        report.setComponents(diff(components, revision.components));
+        report.setIdentical(report.getSections().isEmpty() && report.getOperations().isEmpty()
+                && report.getComponents().isEmpty());
+        return report;
+    }
+
+    private static DiffReport.Changes diff(Map<String, HashCode> base, Map<String, HashCode> revision) {
+        DiffReport.Changes changes = new DiffReport.Changes();
+        for (Map.Entry<String, HashCode> entry : revision.entrySet()) {
+            HashCode baseHash = base.get(entry.getKey());
+            if (baseHash == null) {
+                changes.getAdded().add(entry.getKey());
+            } else if (!baseHash.equals(entry.getValue())) {
+                changes.getChanged().add(entry.getKey());
+            }
+        }
+        for (String key : base.keySet()) {
+            if (!revision.containsKey(key)) {
+                changes.getRemoved().add(key);
+            }
+        }
+        Collections.sort(changes.getAdded());
+        Collections.sort(changes.getRemoved());
+        Collections.sort(changes.getChanged());
+        return changes;
+    }
+
+    /**
+     * Objects and arrays have hashes of their own, while scalar values are put into the hash of their container
+     * as they are, so only containers take a hasher.
+     */
+    private static HashCode hash(JsonNode node) {
+        Hasher hasher = HASH_FUNCTION.newHasher();
+        if (node.isObject()) {
+            for (String field : sortedFieldNames(node)) {
+                putValue(putString(hasher, field), node.get(field));
+            }
+        } else if (node.isArray()) {
+            for (JsonNode element : node) {
+                putValue(hasher, element);
+            }
+        } else {
+            putValue(hasher, node);
+        }
+        return hasher.hash();
+    }
+
+    private static void putValue(Hasher hasher, JsonNode node) {
+        hasher.putInt(node.getNodeType().ordinal());
+        if (node.isContainerNode()) {
+            hasher.putBytes(hash(node).asBytes());
+        } else if (node.isIntegralNumber() && node.canConvertToLong()) {
+            hasher.putLong(node.longValue());
+        } else if (node.isFloatingPointNumber() && isWhole(node.doubleValue())) {
+            // 1 and 1.0 are the same number
+            hasher.putLong((long) node.doubleValue());
+        } else if (node.isFloatingPointNumber()) {
+            hasher.putDouble(node.doubleValue());
+        } else {
+            putString(hasher, node.asText());
+        }
+    }
+
+    private static boolean isWhole(double value) {
+        return value == Math.rint(value) && Math.abs(value) < Long.MAX_VALUE;
+    }
+
+    private static List<String> sortedFieldNames(JsonNode node) {
+        if (node.size() == 1) {
+            return Collections.singletonList(node.fieldNames().next());
+        }
+        List<String> fieldNames = new ArrayList<>(node.size());
+        node.fieldNames().forEachRemaining(fieldNames::add);
+        Collections.sort(fieldNames);
+        return fieldNames;
+    }
+
+    private static Hasher putString(Hasher hasher, String value) {
+        // length goes first, so field names and values can't run into each other
+        return hasher.putInt(value.length()).putString(value, StandardCharsets.UTF_8);
+    }
+}
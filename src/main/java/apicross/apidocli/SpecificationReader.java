@@ -0,0 +1,168 @@
+package apicross.apidocli;
+
+import apicross.apidocli.processors.SpecificationInterner;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import io.swagger.v3.core.util.Json;
+import io.swagger.v3.core.util.Yaml;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.parser.OpenAPIV3Parser;
+import io.swagger.v3.parser.core.models.ParseOptions;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * Reads specification files the same way as swagger parser does: the file is parsed to the document tree,
+ * which is then bound to the specification model.
+ * <p>
+ * Document trees are never changed by binding, so when trees are shared each distinct file is parsed once,
+ * and every read binds its own model, which is safe to be changed in place, except for the interned leaf schemas.
+ * When interning is enabled, strings and leaf schemas are interned, see {@link SpecificationInterner}. Leaf schemas
+ * are interned by the reader's own interner, so they are shared only by the specifications the reader reads.
+ * <p>
+ * Files referenced from specifications are parsed once for all reads while their content stays the same,
+ * see {@link #readExternalTree(Path)}.
+ */
+public class SpecificationReader {
+    private final ParseOptions parseOptions = new ParseOptions();
+    private final SpecificationCache cache;
+    // null if the specifications are not interned
+    private final SpecificationInterner interner;
+    private final ConcurrentMap<Path, FutureTask<JsonNode>> sharedTrees;
+    private final ConcurrentMap<Path, ExternalTree> externalTrees = new ConcurrentHashMap<>();
+
+    /**
+     * @param cache       parsed specifications cache, may be {@code null}
+     * @param shareTrees  whether each distinct file should be parsed once for all reads
+     * @param intern      whether strings and leaf schemas of the specifications should be interned, which makes
+     *                    specifications retain less memory, and take longer to read
+     */
+    public SpecificationReader(SpecificationCache cache, boolean shareTrees, boolean intern) {
+        this.cache = cache;
+        this.interner = intern ? new SpecificationInterner() : null;
+        this.sharedTrees = shareTrees ? new ConcurrentHashMap<>() : null;
+        this.parseOptions.setResolve(false);
+    }
+
+    public OpenAPI read(String location) throws IOException {
+        return read(location, Collections.emptySet());
+    }
+
+    /**
+     * @param cutOffTags operations with any of these tags are removed from the document tree before it is bound,
+     *                   so no model objects are built for them
+     */
+    public OpenAPI read(String location, Set<String> cutOffTags) throws IOException {
+        return bind(location, readTree(location, cutOffTags));
+    }
+
+    /**
+     * @param cutOffTags operations with any of these tags are removed from the document tree
+     * @return document tree of the specification, which must not be changed, so it can be bound to a new model
+     * any number of times, see {@link #bind(String, JsonNode)}
+     */
+    public JsonNode readTree(String location, Set<String> cutOffTags) throws IOException {
+        JsonNode tree = sharedTrees != null ? readSharedTree(Paths.get(location)) : readTree(Paths.get(location));
+        return TaggedOperationsFilter.filter(tree, cutOffTags);
+    }
+
+    /**
+     * Binds the document tree read by {@link #readTree(String, Set)} to a new specification model, the same way
+     * as {@link #read(String, Set)} does.
+     */
+    public OpenAPI bind(String location, JsonNode tree) {
+        OpenAPI specification = new OpenAPIV3Parser().parseJsonNode(location, tree).getOpenAPI();
+        if (specification != null && interner != null) {
+            interner.internLeafSchemas(specification);
+        }
+        return specification;
+    }
+
+    /**
+     * @param file file referenced from specifications
+     * @return document tree of the file, which must not be changed. Trees are kept by canonical file path along with
+     * the file content hash, so the file is parsed again only once its content is changed
+     */
+    public JsonNode readExternalTree(Path file) throws IOException {
+        Path key = file.toRealPath();
+        byte[] content = Files.readAllBytes(key);
+        HashCode hash = Hashing.sha256().hashBytes(content);
+        ExternalTree externalTree = externalTrees.get(key);
+        if (externalTree == null || !externalTree.hash.equals(hash)) {
+            JsonNode tree = cache != null ? cache.readTree(key, parseOptions) : parseTree(content);
+            externalTree = new ExternalTree(hash, internStrings(tree));
+            externalTrees.put(key, externalTree);
+        }
+        return externalTree.tree;
+    }
+
+    public SpecificationCache getCache() {
+        return cache;
+    }
+
+    /**
+     * @return interner of the specifications read, {@code null} if they are not interned
+     */
+    public SpecificationInterner getInterner() {
+        return interner;
+    }
+
+    private JsonNode readSharedTree(Path location) throws IOException {
+        Path key = location.toRealPath();
+        FutureTask<JsonNode> task = new FutureTask<>(() -> readTree(key));
+        FutureTask<JsonNode> sharedTask = sharedTrees.putIfAbsent(key, task);
+        if (sharedTask == null) {
+            sharedTask = task;
+            task.run();
+        }
+
+        try {
+            return sharedTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for " + location + " to be parsed", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException("Unable to parse " + location, e.getCause());
+        }
+    }
+
+    private JsonNode readTree(Path location) throws IOException {
+        JsonNode tree = cache != null
+                ? cache.readTree(location, parseOptions)
+                : parseTree(Files.readAllBytes(location));
+        return internStrings(tree);
+    }
+
+    private JsonNode internStrings(JsonNode tree) {
+        return interner != null ? SpecificationInterner.internStrings(tree) : tree;
+    }
+
+    static JsonNode parseTree(byte[] content) throws IOException {
+        String text = new String(content, StandardCharsets.UTF_8);
+        // the same way as swagger parser detects document format
+        ObjectMapper mapper = text.trim().startsWith("{") ? Json.mapper() : Yaml.mapper();
+        return mapper.readTree(text);
+    }
+
+    private static class ExternalTree {
+        private final HashCode hash;
+        private final JsonNode tree;
+
+        ExternalTree(HashCode hash, JsonNode tree) {
+            this.hash = hash;
+            this.tree = tree;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package apicross.apidocli;
+
+import apicross.apidocli.processors.SplitByTagsProcessor;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.hash.Hashing;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.swagger.v3.oas.models.OpenAPI;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the specification held in memory over HTTP with JDK built-in server. Responses carry strong ETags made of
+ * their content hash, so clients polling with {@code If-None-Match} get 304 until the specification is changed.
+ * <p>
+ * {@code ?tags=a,b} requests a slice with operations having any of the tags. Slices are made on demand and kept
+ * in a bounded least-recently-used cache, which is dropped along with the specification when it's updated.
+ */
+@Slf4j
+public class SpecificationServer {
+    private static final String TAGS_PARAMETER = "tags";
+
+    private final HttpServer httpServer;
+    private final ExecutorService executor;
+    private final OutputFormat format;
+    private final long sliceCacheSize;
+    // replaced as a whole, so each request is served from a single version of the specification
+    private volatile Snapshot snapshot;
+
+    public SpecificationServer(InetSocketAddress address, OutputFormat format, long sliceCacheSize, int threads)
+            throws IOException {
+        this.format = format;
+        this.sliceCacheSize = sliceCacheSize;
+        this.executor = Executors.newFixedThreadPool(threads);
+        this.httpServer = HttpServer.create(address, 0);
+        this.httpServer.setExecutor(executor);
+        this.httpServer.createContext("/", this::handle);
+    }
+
+    public void start() {
+        httpServer.start();
+        log.info("Serving specification at http://{}:{}/", httpServer.getAddress().getHostString(),
+                httpServer.getAddress().getPort());
+    }
+
+    public void stop() {
+        httpServer.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Serves given specification from now on. The specification must not be changed afterwards.
+     */
+    public void update(OpenAPI specification) throws IOException {
+        snapshot = new Snapshot(specification);
+        log.info("Served specification is updated, ETag {}", snapshot.specification.etag);
+    }
+
+    private void handle(HttpExchange exchange) {
+        try {
+            Headers responseHeaders = exchange.getResponseHeaders();
+            String method = exchange.getRequestMethod();
+            if (!"GET".equals(method) && !"HEAD".equals(method)) {
+                responseHeaders.set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            if (!"/".equals(exchange.getRequestURI().getPath())) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            Snapshot current = snapshot;
+            if (current == null) {
+                responseHeaders.set("Retry-After", "1");
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+
+            ImmutableSortedSet<String> tags = tags(exchange.getRequestURI().getRawQuery());
+            Rendering rendering = tags.isEmpty() ? current.specification : current.slices.get(tags);
+
+            responseHeaders.set("ETag", rendering.etag);
+            responseHeaders.set("Cache-Control", "no-cache");
+            if (matches(exchange.getRequestHeaders().get("If-None-Match"), rendering.etag)) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            responseHeaders.set("Content-Type", format.getMediaType());
+            if ("HEAD".equals(method)) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, rendering.body.length);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(rendering.body);
+            }
+        } catch (Exception e) {
+            log.error("Failed to serve {}", exchange.getRequestURI(), e);
+            try {
+                exchange.sendResponseHeaders(500, -1);
+            } catch (IOException ignored) {
+                // response headers are already sent
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * @return tags of {@value #TAGS_PARAMETER} query parameter, sorted to be used as a cache key,
+     * empty if the whole specification is requested
+     */
+    private static ImmutableSortedSet<String> tags(String rawQuery) throws UnsupportedEncodingException {
+        ImmutableSortedSet.Builder<String> tags = ImmutableSortedSet.naturalOrder();
+        if (rawQuery == null) {
+            return tags.build();
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator < 0 || !TAGS_PARAMETER.equals(URLDecoder.decode(parameter.substring(0, separator), "UTF-8"))) {
+                continue;
+            }
+            for (String tag : URLDecoder.decode(parameter.substring(separator + 1), "UTF-8").split(",")) {
+                if (!tag.trim().isEmpty()) {
+                    tags.add(tag.trim());
+                }
+            }
+        }
+        return tags.build();
+    }
+
+    /**
+     * Weak comparison of {@code If-None-Match} entity tags, as the header requires.
+     */
+    private static boolean matches(List<String> ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String value : ifNoneMatch) {
+            for (String candidate : value.split(",")) {
+                candidate = candidate.trim();
+                if (candidate.startsWith("W/")) {
+                    candidate = candidate.substring(2);
+                }
+                if (candidate.equals("*") || candidate.equals(etag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private Rendering render(OpenAPI specification) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        format.write(specification, outputStream);
+        return new Rendering(outputStream.toByteArray());
+    }
+
+    private class Snapshot {
+        private final Rendering specification;
+        private final LoadingCache<ImmutableSortedSet<String>, Rendering> slices;
+
+        Snapshot(OpenAPI specification) throws IOException {
+            this.specification = render(specification);
+            this.slices = CacheBuilder.newBuilder()
+                    .maximumSize(sliceCacheSize)
+                    .build(new CacheLoader<ImmutableSortedSet<String>, Rendering>() {
+                        @Override
+                        public Rendering load(ImmutableSortedSet<String> tags) throws IOException {
+                            return render(new SplitByTagsProcessor().slice(specification, tags));
+                        }
+                    });
+        }
+    }
+
+    private static class Rendering {
+        private final byte[] body;
+        private final String etag;
+
+        Rendering(byte[] body) {
+            this.body = body;
+            this.etag = '"' + Hashing.sha256().hashBytes(body).toString() + '"';
+        }
+    }
+}
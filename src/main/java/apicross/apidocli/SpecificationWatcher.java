@@ -0,0 +1,125 @@
+package apicross.apidocli;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Watches specification files directory, including its subdirectories, and reports changed files: created, modified
+ * and deleted ones. Subdirectories created while watching are watched too, and files found in them are reported
+ * as created. Changes arriving in bursts are reported together once no more changes arrive during debounce period.
+ */
+@Slf4j
+public class SpecificationWatcher {
+    private final Path directory;
+    private final long debounceMillis;
+    private final Set<Path> ignoredPaths;
+    private final Set<Path> watchedDirectories = new HashSet<>();
+
+    /**
+     * @param ignoredPaths files, and directories with files, which changes are not reported, such as outputs
+     *                     written to the watched directory; paths are absolute and normalized
+     */
+    public SpecificationWatcher(Path directory, long debounceMillis, Set<Path> ignoredPaths) {
+        this.directory = directory.toAbsolutePath().normalize();
+        this.debounceMillis = debounceMillis;
+        this.ignoredPaths = ignoredPaths;
+    }
+
+    public void watch(ChangeListener listener) throws IOException, InterruptedException {
+        try (WatchService watchService = directory.getFileSystem().newWatchService()) {
+            register(watchService, directory, new LinkedHashSet<>());
+            log.info("Watching {} for specification changes", directory);
+
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<Path> changedFiles = new LinkedHashSet<>();
+                collectChangedFiles(watchService, watchService.take(), changedFiles);
+
+                WatchKey key;
+                while ((key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                    collectChangedFiles(watchService, key, changedFiles);
+                }
+
+                if (!changedFiles.isEmpty()) {
+                    try {
+                        listener.changed(changedFiles);
+                    } catch (Exception e) {
+                        log.error("Unable to process changes of {}, waiting for further changes", changedFiles, e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Watches the directory and its subdirectories which are not watched yet.
+     *
+     * @param files collects regular files found in the directory
+     */
+    private void register(WatchService watchService, Path directory, Set<Path> files) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Path normalized = path.toAbsolutePath().normalize();
+                if (Files.isDirectory(normalized)) {
+                    if (watchedDirectories.add(normalized)) {
+                        normalized.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                    }
+                } else if (Files.isRegularFile(normalized)) {
+                    files.add(normalized);
+                }
+            }
+        }
+    }
+
+    private void collectChangedFiles(WatchService watchService, WatchKey key, Set<Path> changedFiles)
+            throws IOException {
+        Path keyDirectory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                continue;
+            }
+            Path file = keyDirectory.resolve((Path) event.context()).toAbsolutePath().normalize();
+            if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                // deleted directory is no longer watched, its watch key is cancelled
+                if (!watchedDirectories.remove(file) && !isIgnored(file)) {
+                    changedFiles.add(file);
+                }
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(file)) {
+                // files may be created in the directory before it is watched
+                Set<Path> createdFiles = new LinkedHashSet<>();
+                register(watchService, file, createdFiles);
+                for (Path createdFile : createdFiles) {
+                    if (!isIgnored(createdFile)) {
+                        changedFiles.add(createdFile);
+                    }
+                }
+            } else if (!isIgnored(file) && Files.isRegularFile(file)) {
+                changedFiles.add(file);
+            }
+        }
+        if (!key.reset()) {
+            watchedDirectories.remove(keyDirectory.toAbsolutePath().normalize());
+        }
+    }
+
+    private boolean isIgnored(Path file) {
+        for (Path ignoredPath : ignoredPaths) {
+            if (file.startsWith(ignoredPath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @FunctionalInterface
+    public interface ChangeListener {
+        void changed(Set<Path> files) throws Exception;
+    }
+}
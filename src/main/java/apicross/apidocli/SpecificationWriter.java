@@ -0,0 +1,127 @@
+package apicross.apidocli;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingOutputStream;
+import io.swagger.v3.oas.models.OpenAPI;
+import org.apache.commons.io.output.TeeOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams specification model directly to the output file through Jackson generator,
+ * without building whole document in memory.
+ */
+public class SpecificationWriter {
+    public static final String GZIP_EXTENSION = ".gz";
+    public static final String DIGEST_EXTENSION = ".sha256";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OutputFormat format;
+    private final boolean gzip;
+
+    public SpecificationWriter(OutputFormat format) {
+        this(format, false);
+    }
+
+    /**
+     * @param gzip whether to write gzip-compressed copy of each output file next to it, with
+     *             {@value #GZIP_EXTENSION} extension appended; both files are written in the same pass
+     */
+    public SpecificationWriter(OutputFormat format, boolean gzip) {
+        this.format = format;
+        this.gzip = gzip;
+    }
+
+    public void write(OpenAPI specification, Path output) throws IOException {
+        try (OutputStream outputStream = open(output);
+             OutputStream gzipOutputStream = gzip ? open(gzipFile(output)) : null) {
+            write(specification, outputStream, gzipOutputStream);
+        }
+    }
+
+    /**
+     * Writes specification the same way as {@link #write(OpenAPI, Path)} does, hashing written bytes on the way.
+     *
+     * @return SHA-256 hash of the written file content, before compression
+     */
+    public HashCode writeHashed(OpenAPI specification, Path output) throws IOException {
+        try (HashingOutputStream hashingStream = new HashingOutputStream(Hashing.sha256(), open(output));
+             OutputStream gzipOutputStream = gzip ? open(gzipFile(output)) : null) {
+            write(specification, hashingStream, gzipOutputStream);
+            return hashingStream.hash();
+        }
+    }
+
+    /**
+     * Writes specification the same way as {@link #write(OpenAPI, Path)} does, along with the file of SHA-256
+     * digests of the written files, with {@value #DIGEST_EXTENSION} extension appended. Digests are taken
+     * on the way, and are written in {@code sha256sum} format, so they can be checked with {@code sha256sum -c}.
+     *
+     * @return SHA-256 hash of the written file content, before compression
+     */
+    public HashCode writeWithDigest(OpenAPI specification, Path output) throws IOException {
+        HashCode hash;
+        List<String> digests = new ArrayList<>(2);
+        try (HashingOutputStream hashingStream = new HashingOutputStream(Hashing.sha256(), open(output));
+             HashingOutputStream gzipHashingStream = gzip
+                     ? new HashingOutputStream(Hashing.sha256(), open(gzipFile(output)))
+                     : null) {
+            write(specification, hashingStream, gzipHashingStream);
+
+            hash = hashingStream.hash();
+            digests.add(digestLine(hash, output));
+            if (gzipHashingStream != null) {
+                // gzip trailer is written once the specification is written, so the hash is complete here
+                digests.add(digestLine(gzipHashingStream.hash(), gzipFile(output)));
+            }
+        }
+        Files.write(digestFile(output), digests, StandardCharsets.UTF_8);
+        return hash;
+    }
+
+    public static Path gzipFile(Path output) {
+        return output.resolveSibling(output.getFileName() + GZIP_EXTENSION);
+    }
+
+    public static Path digestFile(Path output) {
+        return output.resolveSibling(output.getFileName() + DIGEST_EXTENSION);
+    }
+
+    private static String digestLine(HashCode hash, Path file) {
+        return hash + "  " + file.getFileName();
+    }
+
+    /**
+     * Writes specification to the output stream, and compresses it to the gzip output stream on the way;
+     * both streams are closed once the specification is written.
+     *
+     * @param gzipOutputStream stream of the gzip-compressed copy, or {@code null} if it is not written
+     */
+    private void write(OpenAPI specification, OutputStream outputStream, OutputStream gzipOutputStream)
+            throws IOException {
+        try (OutputStream teeOutputStream = gzipOutputStream != null
+                ? new TeeOutputStream(outputStream, new GZIPOutputStream(gzipOutputStream, BUFFER_SIZE))
+                : outputStream) {
+            format.write(specification, teeOutputStream);
+        }
+    }
+
+    private static OutputStream open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        return new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+    }
+}
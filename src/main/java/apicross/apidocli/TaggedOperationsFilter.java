@@ -0,0 +1,106 @@
+package apicross.apidocli;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Removes operations with given tags from the specification document tree before the tree is bound to the model,
+ * so no model objects are built for them. Path items left without operations are removed too.
+ * <p>
+ * Given tree is never changed, since trees may be shared: changed objects are copied, and the rest of the nodes
+ * are referenced from the copies.
+ */
+final class TaggedOperationsFilter {
+    private static final Set<String> HTTP_METHODS = ImmutableSet.of("get", "put", "post", "delete", "options",
+            "head", "patch", "trace");
+
+    private TaggedOperationsFilter() {
+    }
+
+    static JsonNode filter(JsonNode specification, Set<String> tags) {
+        JsonNode paths = specification.get("paths");
+        if (tags.isEmpty() || !(paths instanceof ObjectNode)) {
+            return specification;
+        }
+
+        ObjectNode filteredPaths = null;
+        for (Iterator<Map.Entry<String, JsonNode>> it = paths.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> path = it.next();
+            JsonNode pathItem = path.getValue();
+            JsonNode filteredPathItem = filterPathItem(pathItem, tags);
+            if (filteredPathItem != pathItem && filteredPaths == null) {
+                filteredPaths = ((ObjectNode) paths).objectNode();
+                // paths walked so far are unchanged
+                for (Iterator<Map.Entry<String, JsonNode>> copied = paths.fields(); copied.hasNext(); ) {
+                    Map.Entry<String, JsonNode> copiedPath = copied.next();
+                    if (copiedPath.getKey().equals(path.getKey())) {
+                        break;
+                    }
+                    filteredPaths.set(copiedPath.getKey(), copiedPath.getValue());
+                }
+            }
+            if (filteredPaths != null && filteredPathItem != null) {
+                filteredPaths.set(path.getKey(), filteredPathItem);
+            }
+        }
+
+        if (filteredPaths == null) {
+            return specification;
+        }
+        ObjectNode filteredSpecification = ((ObjectNode) specification).objectNode();
+        filteredSpecification.setAll((ObjectNode) specification);
+        filteredSpecification.set("paths", filteredPaths);
+        return filteredSpecification;
+    }
+
+    /**
+     * @return the same path item if none of its operations is removed, its copy without removed operations,
+     * or {@code null} if all of its operations are removed
+     */
+    private static JsonNode filterPathItem(JsonNode pathItem, Set<String> tags) {
+        if (!(pathItem instanceof ObjectNode)) {
+            return pathItem;
+        }
+
+        ObjectNode filteredPathItem = null;
+        boolean hasOperations = false;
+        for (Iterator<Map.Entry<String, JsonNode>> it = pathItem.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = it.next();
+            if (!HTTP_METHODS.contains(field.getKey())) {
+                continue;
+            }
+            if (hasAnyTag(field.getValue(), tags)) {
+                if (filteredPathItem == null) {
+                    filteredPathItem = ((ObjectNode) pathItem).objectNode();
+                    filteredPathItem.setAll((ObjectNode) pathItem);
+                }
+                filteredPathItem.remove(field.getKey());
+            } else {
+                hasOperations = true;
+            }
+        }
+
+        if (filteredPathItem == null) {
+            return pathItem;
+        }
+        return hasOperations ? filteredPathItem : null;
+    }
+
+    private static boolean hasAnyTag(JsonNode operation, Set<String> tags) {
+        JsonNode operationTags = operation.get("tags");
+        if (operationTags == null || !operationTags.isArray()) {
+            return false;
+        }
+        for (JsonNode tag : operationTags) {
+            if (tags.contains(tag.asText())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
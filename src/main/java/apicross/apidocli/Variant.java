@@ -0,0 +1,46 @@
+package apicross.apidocli;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
+import lombok.Getter;
+import picocli.CommandLine;
+
+import java.util.Set;
+
+/**
+ * Output specification variant for an audience, such as public one, given as {@code name[:-t=tag,...]}:
+ * the same output specification without operations with given tags.
+ */
+@Getter
+public class Variant {
+    private static final String CUT_OFF_TAGS_OPTION = "-t=";
+
+    private final String name;
+    private final Set<String> cutOffTags;
+
+    public Variant(String name, Set<String> cutOffTags) {
+        this.name = name;
+        this.cutOffTags = ImmutableSet.copyOf(cutOffTags);
+    }
+
+    public static class Converter implements CommandLine.ITypeConverter<Variant> {
+        @Override
+        public Variant convert(String value) {
+            String[] parts = value.split(":", 2);
+            String name = parts[0];
+            if (name.isEmpty() || !name.matches("[A-Za-z0-9._-]+")) {
+                throw new CommandLine.TypeConversionException("Variant name may contain only letters, digits, " +
+                        "'.', '_' and '-': '" + value + "'");
+            }
+            if (parts.length == 1) {
+                return new Variant(name, ImmutableSet.of());
+            }
+            if (!parts[1].startsWith(CUT_OFF_TAGS_OPTION)) {
+                throw new CommandLine.TypeConversionException("Expected " + name + ":" + CUT_OFF_TAGS_OPTION +
+                        "<tag>[,<tag>...] but was '" + value + "'");
+            }
+            String tags = parts[1].substring(CUT_OFF_TAGS_OPTION.length());
+            return new Variant(name, ImmutableSet.copyOf(Splitter.on(',').trimResults().omitEmptyStrings().split(tags)));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package apicross.apidocli.processors;
+
+import io.swagger.v3.oas.models.Components;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.Paths;
+import io.swagger.v3.oas.models.tags.Tag;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Puts components, paths, tags and extensions of the specification in order of their names, so the same
+ * specification is written the same way, byte for byte, whatever order its components, paths and tags were
+ * defined in.
+ * Order of everything inside paths and components, such as schema properties, comes from the specification
+ * files as it is, since it carries meaning for readers and code generators.
+ */
+public class CanonicalOrderProcessor {
+    private static final Comparator<Tag> TAG_ORDER = Comparator.comparing(Tag::getName,
+            Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    public void process(OpenAPI openAPI) {
+        if (openAPI.getTags() != null) {
+            List<Tag> tags = new ArrayList<>(openAPI.getTags());
+            tags.sort(TAG_ORDER);
+            openAPI.setTags(tags);
+        }
+        if (openAPI.getPaths() != null) {
+            openAPI.setPaths(sortedPaths(openAPI.getPaths()));
+        }
+        openAPI.setExtensions(sorted(openAPI.getExtensions()));
+
+        Components components = openAPI.getComponents();
+        if (components != null) {
+            for (ComponentType type : ComponentType.values()) {
+                Map<String, Object> section = type.get(components);
+                if (section != null) {
+                    type.set(components, sorted(section));
+                }
+            }
+            components.setExtensions(sorted(components.getExtensions()));
+        }
+    }
+
+    private static Paths sortedPaths(Paths paths) {
+        Paths outcome = new Paths();
+        outcome.putAll(new TreeMap<String, PathItem>(paths));
+        outcome.setExtensions(sorted(paths.getExtensions()));
+        return outcome;
+    }
+
+    private static <T> Map<String, T> sorted(Map<String, T> map) {
+        return map != null ? new LinkedHashMap<>(new TreeMap<>(map)) : null;
+    }
+}
@@ -2,140 +2,83 @@ package apicross.apidocli.processors;
 
 import io.swagger.v3.oas.models.Components;
 import io.swagger.v3.oas.models.OpenAPI;
-import io.swagger.v3.oas.models.Operation;
-import io.swagger.v3.oas.models.PathItem;
-import io.swagger.v3.oas.models.media.*;
-import io.swagger.v3.oas.models.parameters.Parameter;
-import io.swagger.v3.oas.models.parameters.RequestBody;
-import io.swagger.v3.oas.models.responses.ApiResponse;
-import io.swagger.v3.oas.models.responses.ApiResponses;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
 
+/**
+ * Removes components which are not reachable, directly or through other components, from the specification paths.
+ */
 public class CleanUnusedModelsProcessor {
-    public void process(OpenAPI openAPI) {
-        Set<String> allUsedRefs = indexAllUsedRefs(openAPI);
-
-        Components components = openAPI.getComponents();
+    static final Set<ComponentType> DEFAULT_CLEANED_COMPONENT_TYPES = EnumSet.of(ComponentType.SCHEMAS,
+            ComponentType.PARAMETERS, ComponentType.HEADERS, ComponentType.RESPONSES, ComponentType.REQUEST_BODIES);
 
-        cleanup(components.getSchemas(), refsForPrefix("#/components/schemas", allUsedRefs));
-        cleanup(components.getParameters(), refsForPrefix("#/components/parameters", allUsedRefs));
-        cleanup(components.getHeaders(), refsForPrefix("#/components/headers", allUsedRefs));
-        cleanup(components.getResponses(), refsForPrefix("#/components/responses", allUsedRefs));
-        cleanup(components.getRequestBodies(), refsForPrefix("#/components/requestBodies", allUsedRefs));
-    }
+    private final Set<ComponentType> cleanedComponentTypes;
 
-    private Set<String> refsForPrefix(String prefix, Set<String> source) {
-        return source.stream()
-                .filter(s -> s.startsWith(prefix))
-                .map(s -> s.replace(prefix, "")).collect(Collectors.toSet());
+    public CleanUnusedModelsProcessor() {
+        this(DEFAULT_CLEANED_COMPONENT_TYPES);
     }
 
-    private void cleanup(Map<String, ?> source, Set<String> allUsedRefs) {
-        if (source == null || source.isEmpty()) {
-            return;
-        }
-        Set<String> keys = new HashSet<>(source.keySet());
-        keys.removeAll(allUsedRefs);
-        for (String unusedKey : keys) {
-            source.remove(unusedKey);
-        }
+    public CleanUnusedModelsProcessor(Set<ComponentType> cleanedComponentTypes) {
+        this.cleanedComponentTypes = EnumSet.copyOf(cleanedComponentTypes);
     }
 
-    private Set<String> indexAllUsedRefs(OpenAPI openAPI) {
-        Set<String> outcome = new HashSet<>();
-        for (PathItem pathItem : openAPI.getPaths().values()) {
-            List<Parameter> parameters = pathItem.getParameters();
-            collectFromParameters(parameters, outcome);
-            Collection<Operation> operations = Utils.mapOperationsByHttpMethod(pathItem).values();
-            collectFromOperations(operations, outcome);
-        }
-        Components components = openAPI.getComponents();
-        Collection<Schema> schemas = components.getSchemas().values();
-        collectFromSchemas(schemas, outcome);
-        return outcome;
+    public void process(OpenAPI openAPI) {
+        new SpecificationTraverser().traverse(openAPI, visitor());
     }
 
-    private void collectFromSchemas(Collection<Schema> schemas, Set<String> outcome) {
-        if (schemas == null) {
-            return;
-        }
-
-        for (Schema<?> schema : schemas) {
-            collectFromSchema(schema, outcome);
-        }
+    public SpecificationVisitor visitor() {
+        return new Visitor();
     }
 
-    private void collectFromSchema(Schema<?> schema, Set<String> outcome) {
-        if (schema.get$ref() != null) {
-            outcome.add(schema.get$ref());
-        } else {
-            Map<String, Schema> properties = schema.getProperties();
-            if (properties != null) {
-                collectFromSchemas(properties.values(), outcome);
-            }
+    private class Visitor implements SpecificationVisitor {
+        private final ReferenceGraph graph = new ReferenceGraph();
+        private final SpecificationVisitor builder = graph.builder();
 
-            if (schema.getAdditionalProperties() instanceof Schema) {
-                collectFromSchema((Schema<?>) schema.getAdditionalProperties(), outcome);
-            }
-
-            if (schema instanceof ComposedSchema) {
-                collectFromSchemas(((ComposedSchema) schema).getAllOf(), outcome);
-                collectFromSchemas(((ComposedSchema) schema).getOneOf(), outcome);
-                collectFromSchemas(((ComposedSchema) schema).getAnyOf(), outcome);
+        @Override
+        public void enterComponent(ComponentType type, String name, Object component) {
+            builder.enterComponent(type, name, component);
+            // components which are never cleaned up are kept with everything they refer to
+            if (!cleanedComponentTypes.contains(type)) {
+                graph.addRoot(graph.node(type, name));
             }
+        }
 
-            if (schema instanceof ArraySchema) {
-                collectFromSchema(((ArraySchema) schema).getItems(), outcome);
-            }
+        @Override
+        public void leaveComponent(ComponentType type, String name, Object component) {
+            builder.leaveComponent(type, name, component);
         }
-    }
 
-    private void collectFromParameters(Collection<Parameter> parameters, Set<String> outcome) {
-        if (parameters == null) {
-            return;
+        @Override
+        public String visitRef(ComponentType type, String ref) {
+            return builder.visitRef(type, ref);
         }
 
-        for (Parameter parameter : parameters) {
-            Schema<?> parameterSchema = parameter.getSchema();
-            if (parameterSchema.get$ref() != null) {
-                outcome.add(parameterSchema.get$ref());
-            }
+        @Override
+        public SpecificationVisitor fork() {
+            return new Visitor();
         }
-    }
 
-    private void collectFromOperations(Collection<Operation> operations, Set<String> outcome) {
-        if (operations == null) {
-            return;
+        @Override
+        public void join(SpecificationVisitor forked) {
+            graph.merge(((Visitor) forked).graph);
         }
 
-        for (Operation operation : operations) {
-            collectFromParameters(operation.getParameters(), outcome);
-            RequestBody requestBody = operation.getRequestBody();
-            if (requestBody != null) {
-                Content content = requestBody.getContent();
-                collectFromContent(content, outcome);
-            }
-            ApiResponses responses = operation.getResponses();
-            if (responses != null) {
-                for (ApiResponse response : responses.values()) {
-                    Content content = response.getContent();
-                    collectFromContent(content, outcome);
-                }
-            }
+        @Override
+        public void complete(OpenAPI openAPI) {
+            cleanup(openAPI.getComponents(), graph, graph.reachable());
         }
     }
 
-    private void collectFromContent(Content content, Set<String> outcome) {
-        if (content != null) {
-            Collection<MediaType> mediaTypes = content.values();
-            for (MediaType mediaType : mediaTypes) {
-                Schema<?> schema = mediaType.getSchema();
-                if (schema != null) {
-                    if (schema.get$ref() != null) {
-                        outcome.add(schema.get$ref());
-                    }
+    private void cleanup(Components components, ReferenceGraph graph, BitSet reachable) {
+        for (ComponentType type : cleanedComponentTypes) {
+            Map<String, ?> source = type.get(components);
+            if (source != null && !source.isEmpty()) {
+                source.keySet().removeIf(name -> !reachable.get(graph.node(type, name)));
+                if (source.isEmpty()) {
+                    type.set(components, null);
                 }
             }
         }
@@ -0,0 +1,75 @@
+package apicross.apidocli.processors;
+
+import io.swagger.v3.oas.models.Components;
+
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Sections of the specification {@link Components} which can be referenced with {@code #/components/...} references.
+ */
+@SuppressWarnings({"unchecked", "rawtypes"})
+public enum ComponentType {
+    SCHEMAS("schemas", Components::getSchemas, (components, map) -> components.setSchemas((Map) map)),
+    RESPONSES("responses", Components::getResponses, (components, map) -> components.setResponses((Map) map)),
+    PARAMETERS("parameters", Components::getParameters, (components, map) -> components.setParameters((Map) map)),
+    EXAMPLES("examples", Components::getExamples, (components, map) -> components.setExamples((Map) map)),
+    REQUEST_BODIES("requestBodies", Components::getRequestBodies, (components, map) -> components.setRequestBodies((Map) map)),
+    HEADERS("headers", Components::getHeaders, (components, map) -> components.setHeaders((Map) map)),
+    SECURITY_SCHEMES("securitySchemes", Components::getSecuritySchemes, (components, map) -> components.setSecuritySchemes((Map) map)),
+    LINKS("links", Components::getLinks, (components, map) -> components.setLinks((Map) map)),
+    CALLBACKS("callbacks", Components::getCallbacks, (components, map) -> components.setCallbacks((Map) map));
+
+    private static final String COMPONENTS_REF_PREFIX = "#/components/";
+
+    private final String sectionName;
+    private final String refPrefix;
+    private final Function<Components, Map<String, ?>> getter;
+    private final BiConsumer<Components, Map<String, ?>> setter;
+
+    ComponentType(String sectionName, Function<Components, Map<String, ?>> getter, BiConsumer<Components, Map<String, ?>> setter) {
+        this.sectionName = sectionName;
+        this.refPrefix = COMPONENTS_REF_PREFIX + sectionName + "/";
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    public String getSectionName() {
+        return sectionName;
+    }
+
+    public String ref(String componentName) {
+        return refPrefix + componentName;
+    }
+
+    /**
+     * @return component name for the reference of this type, or {@code null} if reference points somewhere else
+     */
+    public String componentName(String ref) {
+        return ref != null && ref.startsWith(refPrefix) ? ref.substring(refPrefix.length()) : null;
+    }
+
+    public <T> Map<String, T> get(Components components) {
+        return components != null ? (Map<String, T>) getter.apply(components) : null;
+    }
+
+    public void set(Components components, Map<String, ?> section) {
+        setter.accept(components, section);
+    }
+
+    /**
+     * @return type of the component the internal reference points to, or {@code null} for any other reference
+     */
+    public static ComponentType ofRef(String ref) {
+        if (ref == null || !ref.startsWith(COMPONENTS_REF_PREFIX)) {
+            return null;
+        }
+        for (ComponentType type : values()) {
+            if (ref.startsWith(type.refPrefix)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
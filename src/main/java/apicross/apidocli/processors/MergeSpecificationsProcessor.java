@@ -1,21 +1,71 @@
 package apicross.apidocli.processors;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.Maps;
+import io.swagger.v3.core.util.Json;
 import io.swagger.v3.oas.models.Components;
 import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.PathItem;
 import io.swagger.v3.oas.models.Paths;
-import io.swagger.v3.oas.models.examples.Example;
-import io.swagger.v3.oas.models.headers.Header;
-import io.swagger.v3.oas.models.media.Schema;
-import io.swagger.v3.oas.models.parameters.Parameter;
-import io.swagger.v3.oas.models.parameters.RequestBody;
-import io.swagger.v3.oas.models.responses.ApiResponse;
+import io.swagger.v3.oas.models.tags.Tag;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
+/**
+ * Merges components, paths, tags and extensions of the specification parts into the target specification.
+ * Components are compared by structure, which is their document tree: components with the same name and
+ * different structure are conflicts, and optionally components with the same structure are collapsed into one.
+ */
 public class MergeSpecificationsProcessor {
-    public void process(OpenAPI target, List<OpenAPI> parts) {
-        if (target.getTags() == null) {
-            target.setTags(new ArrayList<>());
+    private static final List<ComponentType> MERGED_COMPONENT_TYPES = Collections.unmodifiableList(Arrays.asList(
+            ComponentType.SCHEMAS, ComponentType.PARAMETERS, ComponentType.HEADERS, ComponentType.REQUEST_BODIES,
+            ComponentType.RESPONSES, ComponentType.EXAMPLES));
+
+    private final boolean deduplicate;
+    private final ForkJoinPool pool;
+    private final Map<String, String> duplicates = new LinkedHashMap<>();
+
+    public MergeSpecificationsProcessor() {
+        this(false);
+    }
+
+    public MergeSpecificationsProcessor(boolean deduplicate) {
+        this(deduplicate, null);
+    }
+
+    /**
+     * @param deduplicate whether components with the same structure and different names are collapsed into the one
+     *                    which comes first, with references to the rest of them rewritten
+     * @param pool        pool to merge the parts on, or {@code null} to merge them on the calling thread
+     */
+    public MergeSpecificationsProcessor(boolean deduplicate, ForkJoinPool pool) {
+        this.deduplicate = deduplicate;
+        this.pool = pool;
+    }
+
+    /**
+     * Parts are merged with each other in pairs, then pairs of the outcomes are merged, and so on, with the halves
+     * merged concurrently given a pool; the outcome is merged into the target. The outcome is the same as the one
+     * of merging the parts into the target one after another: the latest definition of the component is kept
+     * at the place of its first definition, and so is the path.
+     *
+     * @return references of the components defined differently in several specifications, in order of appearance;
+     * the latest definition of such component is kept
+     */
+    public Set<String> process(OpenAPI target, List<OpenAPI> parts) {
+        target.setTags(mergeTags(target, parts));
+
+        Map<String, Object> targetExtensions = target.getExtensions();
+        if (targetExtensions == null) {
+            targetExtensions = new LinkedHashMap<>();
+            target.setExtensions(targetExtensions);
+        }
+        for (OpenAPI part : parts) {
+            if (part.getExtensions() != null) {
+                targetExtensions.putAll(part.getExtensions());
+            }
         }
 
         Components targetComponents = target.getComponents();
@@ -24,90 +74,276 @@ public class MergeSpecificationsProcessor {
             target.setComponents(targetComponents);
         }
 
-        Map<String, Schema> targetSchemas = targetComponents.getSchemas();
-        if (targetSchemas == null) {
-            targetSchemas = new HashMap<>();
-            targetComponents.setSchemas(targetSchemas);
+        Paths targetPaths = target.getPaths();
+        if (targetPaths == null) {
+            targetPaths = new Paths();
+            target.setPaths(targetPaths);
         }
 
-        Map<String, Parameter> targetParameters = targetComponents.getParameters();
-        if (targetParameters == null) {
-            targetParameters = new HashMap<>();
-            targetComponents.setParameters(targetParameters);
-        }
+        Map<String, Long> conflicts = new HashMap<>();
+        MergedParts merged = parts.isEmpty() ? new MergedParts() : pool != null
+                ? pool.invoke(new MergeTask(parts, 0, parts.size()))
+                : merge(parts, 0, parts.size());
 
-        Map<String, Header> targetHeaders = targetComponents.getHeaders();
-        if (targetHeaders == null) {
-            targetHeaders = new HashMap<>();
-            targetComponents.setHeaders(targetHeaders);
+        for (ComponentType type : MERGED_COMPONENT_TYPES) {
+            Map<String, Definition> partsSection = merged.sections.getOrDefault(type, Collections.emptyMap());
+            Map<String, Object> targetSection = type.get(targetComponents);
+            Map<String, Object> outcome;
+            if (targetSection == null || targetSection instanceof LinkedHashMap) {
+                // insertion order decides which one of the duplicated components is kept
+                outcome = Maps.newLinkedHashMapWithExpectedSize(
+                        (targetSection != null ? targetSection.size() : 0) + partsSection.size());
+                if (targetSection != null) {
+                    outcome.putAll(targetSection);
+                }
+            } else {
+                outcome = targetSection;
+            }
+            for (Map.Entry<String, Definition> entry : partsSection.entrySet()) {
+                Definition definition = entry.getValue();
+                Object existing = outcome.put(entry.getKey(), definition.last);
+                if (existing != null && isConflict(existing, definition.first)) {
+                    conflicts.merge(type.ref(entry.getKey()), definition.position, Math::min);
+                }
+            }
+            type.set(targetComponents, outcome);
         }
+        merged.conflicts.forEach((ref, position) -> conflicts.merge(ref, position, Math::min));
 
-        Map<String, RequestBody> targetRequestBodies = targetComponents.getRequestBodies();
-        if (targetRequestBodies == null) {
-            targetRequestBodies = new HashMap<>();
-            targetComponents.setRequestBodies(targetRequestBodies);
-        }
+        targetPaths.putAll(merged.paths);
 
-        Map<String, ApiResponse> targetResponses = targetComponents.getResponses();
-        if (targetResponses == null) {
-            targetResponses = new HashMap<>();
-            targetComponents.setResponses(targetResponses);
+        if (deduplicate) {
+            deduplicate(target);
         }
 
-        Map<String, Example> targetExamples = targetComponents.getExamples();
-        if (targetExamples == null) {
-            targetExamples = new HashMap<>();
-            targetComponents.setExamples(targetExamples);
-        }
+        List<String> orderedConflicts = new ArrayList<>(conflicts.keySet());
+        orderedConflicts.sort(Comparator.comparing(conflicts::get));
+        return new LinkedHashSet<>(orderedConflicts);
+    }
 
-        Map<String, Object> targetExtensions = target.getExtensions();
-        if (targetExtensions == null) {
-            targetExtensions = new HashMap<>();
-            target.setExtensions(targetExtensions);
+    /**
+     * @return tags of the target followed by tags of the parts, only the first tag of each name is kept
+     */
+    private static List<Tag> mergeTags(OpenAPI target, List<OpenAPI> parts) {
+        List<Tag> tags = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        List<List<Tag>> tagLists = new ArrayList<>();
+        tagLists.add(target.getTags());
+        for (OpenAPI part : parts) {
+            tagLists.add(part.getTags());
         }
+        for (List<Tag> tagList : tagLists) {
+            if (tagList == null) {
+                continue;
+            }
+            for (Tag tag : tagList) {
+                if (tag.getName() == null || names.add(tag.getName())) {
+                    tags.add(tag);
+                }
+            }
+        }
+        return tags;
+    }
 
-        Paths targetPaths = target.getPaths();
-        if (targetPaths == null) {
-            targetPaths = new Paths();
-            target.setPaths(targetPaths);
+    /**
+     * Merges parts with given indexes on the calling thread.
+     */
+    private static MergedParts merge(List<OpenAPI> parts, int from, int to) {
+        if (to - from == 1) {
+            return new MergedParts(parts.get(from), from);
         }
+        int middle = (from + to) >>> 1;
+        return merge(parts, from, middle).merge(merge(parts, middle, to));
+    }
 
-        for (OpenAPI part : parts) {
-            target.getTags().addAll(part.getTags());
+    private static boolean isConflict(Object existing, Object component) {
+        return existing != component && !structure(existing).equals(structure(component));
+    }
 
-            Components partComponents = part.getComponents();
+    /**
+     * @return references of the components removed as duplicates, mapped to the references of the kept components
+     */
+    public Map<String, String> getDuplicates() {
+        return Collections.unmodifiableMap(duplicates);
+    }
 
-            if (partComponents.getSchemas() != null) {
-                targetSchemas.putAll(partComponents.getSchemas());
-            }
+    /**
+     * Collapses components of the same structure until there are none left. Components which refer to collapsed ones
+     * may become the same after their references are rewritten, so collapsing is repeated, and only structures of
+     * such components are built again.
+     */
+    private void deduplicate(OpenAPI target) {
+        Components components = target.getComponents();
+        Map<String, JsonNode> structures = new HashMap<>();
 
-            if (partComponents.getParameters() != null) {
-                targetParameters.putAll(partComponents.getParameters());
+        while (true) {
+            Map<String, String> replacements = new HashMap<>();
+            for (ComponentType type : MERGED_COMPONENT_TYPES) {
+                Map<String, Object> section = type.get(components);
+                Map<JsonNode, String> kept = new HashMap<>();
+                for (Iterator<Map.Entry<String, Object>> it = section.entrySet().iterator(); it.hasNext(); ) {
+                    Map.Entry<String, Object> entry = it.next();
+                    String ref = type.ref(entry.getKey());
+                    JsonNode structure = structures.computeIfAbsent(ref, r -> structure(entry.getValue()));
+                    String keptRef = kept.putIfAbsent(structure, ref);
+                    if (keptRef != null) {
+                        replacements.put(ref, keptRef);
+                        structures.remove(ref);
+                        it.remove();
+                    }
+                }
             }
 
-            if (partComponents.getHeaders() != null) {
-                targetHeaders.putAll(partComponents.getHeaders());
+            if (replacements.isEmpty()) {
+                return;
             }
 
-            if (partComponents.getRequestBodies() != null) {
-                targetRequestBodies.putAll(partComponents.getRequestBodies());
+            for (Map.Entry<String, String> duplicate : duplicates.entrySet()) {
+                duplicate.setValue(replacements.getOrDefault(duplicate.getValue(), duplicate.getValue()));
             }
+            duplicates.putAll(replacements);
 
-            if (partComponents.getResponses() != null) {
-                targetResponses.putAll(partComponents.getResponses());
-            }
+            new SpecificationTraverser().traverse(target, new SpecificationVisitor() {
+                private String currentComponent;
+
+                @Override
+                public void enterComponent(ComponentType type, String name, Object component) {
+                    currentComponent = type.ref(name);
+                }
+
+                @Override
+                public void leaveComponent(ComponentType type, String name, Object component) {
+                    currentComponent = null;
+                }
+
+                @Override
+                public String visitRef(ComponentType type, String ref) {
+                    String replacement = replacements.get(ref);
+                    if (replacement == null) {
+                        return ref;
+                    }
+                    if (currentComponent != null) {
+                        structures.remove(currentComponent);
+                    }
+                    return replacement;
+                }
+            });
+        }
+    }
+
+    private static JsonNode structure(Object component) {
+        return Json.mapper().valueToTree(component);
+    }
+
+    /**
+     * Definitions of the component in a range of parts: the first one, the latest one, and position
+     * of the first one, made of the part index and the component index in the part.
+     */
+    private static class Definition {
+        private final Object first;
+        private final Object last;
+        private final long position;
+
+        Definition(Object first, Object last, long position) {
+            this.first = first;
+            this.last = last;
+            this.position = position;
+        }
+    }
+
+    /**
+     * Components and paths of a range of parts, along with conflicts between their components by positions
+     * the conflicts would be found at if the parts were merged one after another.
+     */
+    private static class MergedParts {
+        private final Map<ComponentType, Map<String, Definition>> sections = new EnumMap<>(ComponentType.class);
+        private final Map<String, Long> conflicts = new HashMap<>();
+        private Map<String, PathItem> paths = Collections.emptyMap();
 
-            if (partComponents.getExamples() != null) {
-                targetExamples.putAll(partComponents.getExamples());
+        MergedParts() {
+        }
+
+        MergedParts(OpenAPI part, int index) {
+            long position = (long) index << 32;
+            for (ComponentType type : MERGED_COMPONENT_TYPES) {
+                Map<String, Object> section = type.get(part.getComponents());
+                if (section == null) {
+                    continue;
+                }
+                Map<String, Definition> definitions = Maps.newLinkedHashMapWithExpectedSize(section.size());
+                for (Map.Entry<String, Object> entry : section.entrySet()) {
+                    definitions.put(entry.getKey(), new Definition(entry.getValue(), entry.getValue(), position++));
+                }
+                sections.put(type, definitions);
             }
+            if (part.getPaths() != null) {
+                paths = part.getPaths();
+            }
+        }
 
-            if (part.getExtensions() != null) {
-                targetExtensions.putAll(part.getExtensions());
+        /**
+         * @return this range followed by the next one, this range is not changed
+         */
+        MergedParts merge(MergedParts next) {
+            MergedParts outcome = new MergedParts();
+            for (ComponentType type : MERGED_COMPONENT_TYPES) {
+                Map<String, Definition> section = sections.getOrDefault(type, Collections.emptyMap());
+                Map<String, Definition> nextSection = next.sections.getOrDefault(type, Collections.emptyMap());
+                if (section.isEmpty() && nextSection.isEmpty()) {
+                    continue;
+                }
+                Map<String, Definition> definitions = Maps.newLinkedHashMapWithExpectedSize(
+                        section.size() + nextSection.size());
+                definitions.putAll(section);
+                for (Map.Entry<String, Definition> entry : nextSection.entrySet()) {
+                    Definition nextDefinition = entry.getValue();
+                    Definition definition = definitions.get(entry.getKey());
+                    if (definition == null) {
+                        definitions.put(entry.getKey(), nextDefinition);
+                        continue;
+                    }
+                    if (isConflict(definition.last, nextDefinition.first)) {
+                        outcome.conflicts.merge(type.ref(entry.getKey()), nextDefinition.position, Math::min);
+                    }
+                    definitions.put(entry.getKey(),
+                            new Definition(definition.first, nextDefinition.last, definition.position));
+                }
+                outcome.sections.put(type, definitions);
             }
 
-            if (part.getPaths() != null) {
-                targetPaths.putAll(part.getPaths());
+            conflicts.forEach((ref, position) -> outcome.conflicts.merge(ref, position, Math::min));
+            next.conflicts.forEach((ref, position) -> outcome.conflicts.merge(ref, position, Math::min));
+
+            outcome.paths = Maps.newLinkedHashMapWithExpectedSize(paths.size() + next.paths.size());
+            outcome.paths.putAll(paths);
+            outcome.paths.putAll(next.paths);
+            return outcome;
+        }
+    }
+
+    private static class MergeTask extends RecursiveTask<MergedParts> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<OpenAPI> parts;
+        private final int from;
+        private final int to;
+
+        MergeTask(List<OpenAPI> parts, int from, int to) {
+            this.parts = parts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected MergedParts compute() {
+            if (to - from == 1) {
+                return new MergedParts(parts.get(from), from);
             }
+            int middle = (from + to) >>> 1;
+            MergeTask first = new MergeTask(parts, from, middle);
+            first.fork();
+            MergedParts second = new MergeTask(parts, middle, to).compute();
+            return first.join().merge(second);
         }
     }
 }
@@ -0,0 +1,170 @@
+package apicross.apidocli.processors;
+
+import io.swagger.v3.oas.models.OpenAPI;
+
+import java.util.*;
+
+/**
+ * Graph of references between specification components. Every component is interned to an integer node id,
+ * references from a component to other components are edges, and references from paths and operations are roots.
+ */
+public class ReferenceGraph {
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> refs = new ArrayList<>();
+    private final BitSet roots = new BitSet();
+    private int[][] edges = new int[64][];
+    private int[] edgeCounts = new int[64];
+
+    public static ReferenceGraph build(OpenAPI openAPI) {
+        ReferenceGraph graph = new ReferenceGraph();
+        new SpecificationTraverser().traverse(openAPI, graph.builder());
+        return graph;
+    }
+
+    /**
+     * @return visitor which fills this graph, to be combined with other visitors in a single {@link SpecificationTraverser} walk
+     */
+    public SpecificationVisitor builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return node id of the component with given internal reference, new node is added to the graph if needed
+     */
+    public int node(String ref) {
+        Integer id = ids.get(ref);
+        if (id == null) {
+            id = refs.size();
+            ids.put(ref, id);
+            refs.add(ref);
+            if (id == edges.length) {
+                edges = Arrays.copyOf(edges, id * 2);
+                edgeCounts = Arrays.copyOf(edgeCounts, id * 2);
+            }
+        }
+        return id;
+    }
+
+    public int node(ComponentType type, String name) {
+        return node(type.ref(name));
+    }
+
+    public void addEdge(int from, int to) {
+        int[] targets = edges[from];
+        int count = edgeCounts[from];
+        if (targets == null) {
+            targets = edges[from] = new int[4];
+        } else if (count == targets.length) {
+            targets = edges[from] = Arrays.copyOf(targets, count * 2);
+        }
+        targets[count] = to;
+        edgeCounts[from] = count + 1;
+    }
+
+    public void addRoot(int node) {
+        roots.set(node);
+    }
+
+    /**
+     * Adds nodes, edges and roots of the other graph to this one. Nodes new to this graph get ids in order of
+     * the other graph ids, so merging graphs built from consecutive parts of the specification gives the same graph
+     * as building it from the whole specification.
+     */
+    public void merge(ReferenceGraph other) {
+        int[] ids = new int[other.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = node(other.ref(i));
+        }
+        for (int from = 0; from < ids.length; from++) {
+            for (int i = 0; i < other.edgeCounts[from]; i++) {
+                addEdge(ids[from], ids[other.edges[from][i]]);
+            }
+        }
+        for (int root = other.roots.nextSetBit(0); root >= 0; root = other.roots.nextSetBit(root + 1)) {
+            addRoot(ids[root]);
+        }
+    }
+
+    public int size() {
+        return refs.size();
+    }
+
+    public String ref(int node) {
+        return refs.get(node);
+    }
+
+    /**
+     * @return ids of nodes reachable from the roots, every node and edge is visited at most once
+     */
+    public BitSet reachable() {
+        return reachable(roots);
+    }
+
+    /**
+     * @return ids of nodes reachable from given nodes instead of the roots of this graph
+     */
+    public BitSet reachable(BitSet roots) {
+        BitSet reached = new BitSet(refs.size());
+        int[] worklist = new int[Math.max(refs.size(), 1)];
+        int top = 0;
+        for (int root = roots.nextSetBit(0); root >= 0; root = roots.nextSetBit(root + 1)) {
+            reached.set(root);
+            worklist[top++] = root;
+        }
+        while (top > 0) {
+            int node = worklist[--top];
+            int[] targets = edges[node];
+            for (int i = 0; i < edgeCounts[node]; i++) {
+                int target = targets[i];
+                if (!reached.get(target)) {
+                    reached.set(target);
+                    worklist[top++] = target;
+                }
+            }
+        }
+        return reached;
+    }
+
+    private class Builder implements SpecificationVisitor {
+        private static final int NO_COMPONENT = -1;
+
+        private int currentComponent = NO_COMPONENT;
+
+        @Override
+        public void enterComponent(ComponentType type, String name, Object component) {
+            currentComponent = node(type, name);
+        }
+
+        @Override
+        public void leaveComponent(ComponentType type, String name, Object component) {
+            currentComponent = NO_COMPONENT;
+        }
+
+        @Override
+        public String visitRef(ComponentType type, String ref) {
+            if (ComponentType.ofRef(ref) != null) {
+                int target = node(ref);
+                if (currentComponent == NO_COMPONENT) {
+                    addRoot(target);
+                } else {
+                    addEdge(currentComponent, target);
+                }
+            }
+            return ref;
+        }
+
+        @Override
+        public SpecificationVisitor fork() {
+            return new ReferenceGraph().builder();
+        }
+
+        @Override
+        public void join(SpecificationVisitor forked) {
+            merge(((Builder) forked).graph());
+        }
+
+        private ReferenceGraph graph() {
+            return ReferenceGraph.this;
+        }
+    }
+}
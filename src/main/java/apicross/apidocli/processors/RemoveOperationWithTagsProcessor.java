@@ -3,7 +3,6 @@ package apicross.apidocli.processors;
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.Operation;
 import io.swagger.v3.oas.models.PathItem;
-import io.swagger.v3.oas.models.Paths;
 
 import java.util.HashSet;
 import java.util.List;
@@ -12,71 +11,94 @@ import java.util.Set;
 
 public class RemoveOperationWithTagsProcessor {
     public void process(OpenAPI openAPI, Set<String> tagsToCutOff) {
-        Set<String> uriPathsWithoutOperations = new HashSet<>();
-        Set<String> tagsWithOperations = new HashSet<>();
+        new SpecificationTraverser().traverse(openAPI, visitor(tagsToCutOff));
+    }
+
+    /**
+     * @return visitor which removes operations with given tags before they are walked by other visitors
+     * of the same {@link SpecificationTraverser} walk
+     */
+    public SpecificationVisitor visitor(Set<String> tagsToCutOff) {
+        return new Visitor(tagsToCutOff);
+    }
+
+    private static class Visitor implements SpecificationVisitor {
+        private final Set<String> tagsToCutOff;
+        private final Set<String> uriPathsWithoutOperations = new HashSet<>();
+
+        Visitor(Set<String> tagsToCutOff) {
+            this.tagsToCutOff = tagsToCutOff;
+        }
 
-        Paths paths = openAPI.getPaths();
-        for (String uriPath : paths.keySet()) {
-            PathItem pathItem = paths.get(uriPath);
-            if (needsToBeIgnored(pathItem.getGet(), tagsToCutOff)) {
+        @Override
+        public void visitPathItem(String uriPath, PathItem pathItem) {
+            if (needsToBeIgnored(pathItem.getGet())) {
                 pathItem.setGet(null);
             }
-            if (needsToBeIgnored(pathItem.getPost(), tagsToCutOff)) {
+            if (needsToBeIgnored(pathItem.getPost())) {
                 pathItem.setPost(null);
             }
-            if (needsToBeIgnored(pathItem.getPut(), tagsToCutOff)) {
+            if (needsToBeIgnored(pathItem.getPut())) {
                 pathItem.setPut(null);
             }
-            if (needsToBeIgnored(pathItem.getDelete(), tagsToCutOff)) {
+            if (needsToBeIgnored(pathItem.getDelete())) {
                 pathItem.setDelete(null);
             }
-            if (needsToBeIgnored(pathItem.getPatch(), tagsToCutOff)) {
+            if (needsToBeIgnored(pathItem.getPatch())) {
                 pathItem.setPatch(null);
             }
-            if (needsToBeIgnored(pathItem.getHead(), tagsToCutOff)) {
+            if (needsToBeIgnored(pathItem.getHead())) {
                 pathItem.setHead(null);
             }
-            if (needsToBeIgnored(pathItem.getOptions(), tagsToCutOff)) {
+            if (needsToBeIgnored(pathItem.getOptions())) {
                 pathItem.setOptions(null);
             }
-            if (needsToBeIgnored(pathItem.getTrace(), tagsToCutOff)) {
+            if (needsToBeIgnored(pathItem.getTrace())) {
                 pathItem.setTrace(null);
             }
 
             Map<String, Operation> operationMap = Utils.mapOperationsByHttpMethod(pathItem);
             if (operationMap.isEmpty()) {
                 uriPathsWithoutOperations.add(uriPath);
-            } else {
-                for (Operation operation : operationMap.values()) {
-                    List<String> tags = operation.getTags();
-                    if (!tags.isEmpty()) {
-                        tagsWithOperations.addAll(tags);
-                    }
-                }
             }
         }
 
-        for (String uriPathWithNoOperations : uriPathsWithoutOperations) {
-            openAPI.getPaths().remove(uriPathWithNoOperations);
+        @Override
+        public SpecificationVisitor fork() {
+            return new Visitor(tagsToCutOff);
         }
 
-        openAPI.getTags().removeIf(tag -> !tagsWithOperations.contains(tag.getName()));
-    }
-
-    private boolean needsToBeIgnored(Operation operation, Set<String> tagsToCutOff) {
-        if (operation == null) {
-            return false;
+        @Override
+        public void join(SpecificationVisitor forked) {
+            uriPathsWithoutOperations.addAll(((Visitor) forked).uriPathsWithoutOperations);
         }
-        List<String> tags = operation.getTags();
-        if (tags == null) {
-            return false;
+
+        @Override
+        public void complete(OpenAPI openAPI) {
+            for (String uriPathWithNoOperations : uriPathsWithoutOperations) {
+                openAPI.getPaths().remove(uriPathWithNoOperations);
+            }
+
+            if (openAPI.getTags() != null) {
+                Set<String> tagsWithOperations = TagIndex.build(openAPI.getPaths()).getTags();
+                openAPI.getTags().removeIf(tag -> !tagsWithOperations.contains(tag.getName()));
+            }
         }
-        for (String tag : tags) {
-            if (tagsToCutOff.contains(tag)) {
-                return true;
+
+        private boolean needsToBeIgnored(Operation operation) {
+            if (operation == null) {
+                return false;
             }
+            List<String> tags = operation.getTags();
+            if (tags == null) {
+                return false;
+            }
+            for (String tag : tags) {
+                if (tagsToCutOff.contains(tag)) {
+                    return true;
+                }
+            }
+            return false;
         }
-        return false;
     }
-
 }
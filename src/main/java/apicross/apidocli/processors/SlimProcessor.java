@@ -0,0 +1,205 @@
+package apicross.apidocli.processors;
+
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.headers.Header;
+import io.swagger.v3.oas.models.media.MediaType;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.oas.models.parameters.Parameter;
+import io.swagger.v3.oas.models.parameters.RequestBody;
+import io.swagger.v3.oas.models.responses.ApiResponse;
+import io.swagger.v3.oas.models.security.SecurityScheme;
+import io.swagger.v3.oas.models.servers.Server;
+import io.swagger.v3.oas.models.tags.Tag;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Strips documentation from the specification for its runtime consumers, such as API gateways and request
+ * validators, which need its structure only: titles, summaries, descriptions, examples and external documentation
+ * are removed, and so are the components left unused, examples included. Descriptions of responses are required,
+ * so they are emptied instead.
+ * <p>
+ * Interned leaf schemas are shared with other specifications, so they are replaced with stripped copies, interned
+ * as well, while the rest of the nodes is stripped in place. Leaf schemas which are not interned are stripped
+ * in place too.
+ */
+public class SlimProcessor {
+    private static final Set<ComponentType> CLEANED_COMPONENT_TYPES = EnumSet.of(ComponentType.SCHEMAS,
+            ComponentType.PARAMETERS, ComponentType.HEADERS, ComponentType.RESPONSES, ComponentType.REQUEST_BODIES,
+            ComponentType.EXAMPLES);
+
+    // interner of the leaf schemas, null if they are not interned
+    private final SpecificationInterner interner;
+    // equal leaf schemas are interned once, so each of them is stripped once
+    @SuppressWarnings("rawtypes")
+    private final Map<Schema, Schema> strippedLeafSchemas = new ConcurrentHashMap<>();
+
+    public SlimProcessor() {
+        this(null);
+    }
+
+    /**
+     * @param interner interner the leaf schemas of processed specifications are interned by, {@code null} if they
+     *                 are not interned
+     */
+    public SlimProcessor(SpecificationInterner interner) {
+        this.interner = interner;
+    }
+
+    public void process(OpenAPI openAPI) {
+        process(openAPI, new SpecificationTraverser());
+    }
+
+    public void process(OpenAPI openAPI, SpecificationTraverser traverser) {
+        if (openAPI.getInfo() != null) {
+            openAPI.getInfo().setDescription(null);
+            openAPI.getInfo().setTermsOfService(null);
+        }
+        openAPI.setExternalDocs(null);
+        if (openAPI.getServers() != null) {
+            for (Server server : openAPI.getServers()) {
+                server.setDescription(null);
+            }
+        }
+        if (openAPI.getTags() != null) {
+            for (Tag tag : openAPI.getTags()) {
+                tag.setDescription(null);
+                tag.setExternalDocs(null);
+            }
+        }
+
+        // examples are stripped before the rest of the visitors see them, so examples components are left unused
+        traverser.traverse(openAPI, Arrays.asList(
+                new Visitor(),
+                SpecificationInterner.replaceLeafSchemas(this::stripLeafSchema),
+                new CleanUnusedModelsProcessor(CLEANED_COMPONENT_TYPES).visitor()));
+    }
+
+    @SuppressWarnings("rawtypes")
+    private Schema stripLeafSchema(Schema schema) {
+        if (!hasDocumentation(schema)) {
+            return schema;
+        }
+        if (interner == null) {
+            strip(schema);
+            return schema;
+        }
+        return strippedLeafSchemas.computeIfAbsent(schema, leaf -> {
+            Schema copy = copy(leaf);
+            strip(copy);
+            return interner.internLeaf(copy);
+        });
+    }
+
+    /**
+     * @return shallow copy of the schema, of the same class, made field by field, since schemas can't be copied
+     * through Jackson without loss of some values, such as defaults of dates
+     */
+    @SuppressWarnings("rawtypes")
+    private static Schema copy(Schema schema) {
+        try {
+            Schema copy = schema.getClass().getDeclaredConstructor().newInstance();
+            for (Class<?> type = schema.getClass(); type != Object.class; type = type.getSuperclass()) {
+                for (Field field : type.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        field.setAccessible(true);
+                        field.set(copy, field.get(schema));
+                    }
+                }
+            }
+            return copy;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to copy schema of " + schema.getClass(), e);
+        }
+    }
+
+    private static boolean hasDocumentation(Schema<?> schema) {
+        return schema.getTitle() != null || schema.getDescription() != null || schema.getExample() != null
+                || schema.getExternalDocs() != null;
+    }
+
+    private static void strip(Schema<?> schema) {
+        schema.setTitle(null);
+        schema.setDescription(null);
+        schema.setExample(null);
+        // example is not set, rather than set to null
+        schema.setExampleSetFlag(false);
+        schema.setExternalDocs(null);
+    }
+
+    private static class Visitor implements SpecificationVisitor {
+        @Override
+        public SpecificationVisitor fork() {
+            return this;
+        }
+
+        @Override
+        public void visitPathItem(String path, PathItem pathItem) {
+            pathItem.setSummary(null);
+            pathItem.setDescription(null);
+        }
+
+        @Override
+        public void visitOperation(Operation operation) {
+            operation.setSummary(null);
+            operation.setDescription(null);
+            operation.setExternalDocs(null);
+        }
+
+        @Override
+        public void visitParameter(Parameter parameter) {
+            parameter.setDescription(null);
+            parameter.setExample(null);
+            parameter.setExamples(null);
+        }
+
+        @Override
+        public void visitRequestBody(RequestBody requestBody) {
+            requestBody.setDescription(null);
+        }
+
+        @Override
+        public void visitResponse(ApiResponse response) {
+            response.setDescription("");
+        }
+
+        @Override
+        public void visitHeader(Header header) {
+            header.setDescription(null);
+            header.setExample(null);
+            header.setExamples(null);
+        }
+
+        @Override
+        public void visitMediaType(MediaType mediaType) {
+            mediaType.setExample(null);
+            mediaType.setExamples(null);
+        }
+
+        @Override
+        public void visitSchema(Schema<?> schema) {
+            // leaf schemas are replaced with stripped copies by their parents
+            if (!SpecificationInterner.isLeaf(schema)) {
+                strip(schema);
+            }
+        }
+
+        @Override
+        public void enterComponent(ComponentType type, String name, Object component) {
+            // component schemas are never interned, so leaf ones are stripped in place too
+            if (type == ComponentType.SCHEMAS && SpecificationInterner.isLeaf((Schema<?>) component)) {
+                strip((Schema<?>) component);
+            } else if (type == ComponentType.SECURITY_SCHEMES) {
+                ((SecurityScheme) component).setDescription(null);
+            }
+        }
+    }
+}
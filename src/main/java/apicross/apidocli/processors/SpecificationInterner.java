@@ -0,0 +1,189 @@
+package apicross.apidocli.processors;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.headers.Header;
+import io.swagger.v3.oas.models.media.ArraySchema;
+import io.swagger.v3.oas.models.media.ComposedSchema;
+import io.swagger.v3.oas.models.media.MediaType;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.oas.models.parameters.Parameter;
+
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+/**
+ * Interns strings and leaf schemas of the specifications, so equal values repeated within a specification
+ * or across specifications are held once. Interned values are weakly referenced, so they are collected
+ * along with the specifications.
+ * <p>
+ * Strings are immutable, so they are interned once for the whole process. Leaf schemas are interned by each
+ * interner on its own, so they are shared only by the specifications of the run owning it, see
+ * {@link apicross.apidocli.SpecificationReader}.
+ * Leaf schema is an inline schema without references and nested schemas, e.g. {@code type: string}.
+ * Interned leaf schemas are shared by all places they were found in, so they must never be changed in place.
+ */
+public final class SpecificationInterner {
+    private static final Interner<String> STRINGS = Interners.newWeakInterner();
+
+    private final Interner<Schema<?>> leafSchemas = Interners.newWeakInterner();
+
+    public static String intern(String value) {
+        return value != null ? STRINGS.intern(value) : null;
+    }
+
+    /**
+     * Interns field names and text values of the document tree in place, so the model bound from the tree
+     * refers to interned strings.
+     *
+     * @return given tree
+     */
+    public static JsonNode internStrings(JsonNode tree) {
+        // most of the strings are repeated within the tree, so they are looked up locally first
+        return internStrings(tree, new HashMap<>());
+    }
+
+    private static JsonNode internStrings(JsonNode tree, Map<String, String> interned) {
+        if (tree instanceof ObjectNode) {
+            ObjectNode object = (ObjectNode) tree;
+            // field names can't be replaced in place, so fields are put again in the same order
+            List<Map.Entry<String, JsonNode>> fields = new ArrayList<>(object.size());
+            object.fields().forEachRemaining(fields::add);
+            object.removeAll();
+            for (Map.Entry<String, JsonNode> field : fields) {
+                object.set(intern(field.getKey(), interned), internValue(field.getValue(), interned));
+            }
+        } else if (tree instanceof ArrayNode) {
+            ArrayNode array = (ArrayNode) tree;
+            for (int i = 0; i < array.size(); i++) {
+                JsonNode element = array.get(i);
+                JsonNode internedElement = internValue(element, interned);
+                if (internedElement != element) {
+                    array.set(i, internedElement);
+                }
+            }
+        }
+        return tree;
+    }
+
+    private static JsonNode internValue(JsonNode value, Map<String, String> interned) {
+        if (value.isTextual()) {
+            String text = value.textValue();
+            String internedText = intern(text, interned);
+            return internedText == text ? value : TextNode.valueOf(internedText);
+        }
+        return internStrings(value, interned);
+    }
+
+    private static String intern(String value, Map<String, String> interned) {
+        String internedValue = interned.get(value);
+        if (internedValue == null) {
+            internedValue = intern(value);
+            interned.put(internedValue, internedValue);
+        }
+        return internedValue;
+    }
+
+    /**
+     * Replaces inline leaf schemas of the specification paths and components with interned ones.
+     * Component schemas themselves are named, so they are never replaced.
+     */
+    public void internLeafSchemas(OpenAPI openAPI) {
+        new SpecificationTraverser().traverse(openAPI, replaceLeafSchemas(this::internLeaf));
+    }
+
+    /**
+     * @param replacement makes the schema to be set instead of the given leaf schema, which it must not change
+     * @return visitor which replaces inline leaf schemas nested in visited nodes before the traverser walks them,
+     * which is the way to change leaf schemas, since they may be interned
+     */
+    @SuppressWarnings("rawtypes")
+    public static SpecificationVisitor replaceLeafSchemas(UnaryOperator<Schema> replacement) {
+        return new LeafSchemasVisitor(replacement);
+    }
+
+    static boolean isLeaf(Schema<?> schema) {
+        return schema != null
+                && schema.get$ref() == null
+                && (schema.getProperties() == null || schema.getProperties().isEmpty())
+                && schema.getAdditionalProperties() == null
+                && schema.getNot() == null
+                && schema.getDiscriminator() == null
+                && !(schema instanceof ArraySchema)
+                && !(schema instanceof ComposedSchema);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    Schema internLeaf(Schema schema) {
+        return leafSchemas.intern(schema);
+    }
+
+    /**
+     * Replaces leaf schemas nested in visited nodes before the traverser walks them.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static class LeafSchemasVisitor implements SpecificationVisitor {
+        private final UnaryOperator<Schema> replacement;
+
+        LeafSchemasVisitor(UnaryOperator<Schema> replacement) {
+            this.replacement = replacement;
+        }
+
+        @Override
+        public SpecificationVisitor fork() {
+            return this;
+        }
+
+        @Override
+        public void visitParameter(Parameter parameter) {
+            parameter.setSchema(replaceLeaf(parameter.getSchema()));
+        }
+
+        @Override
+        public void visitHeader(Header header) {
+            header.setSchema(replaceLeaf(header.getSchema()));
+        }
+
+        @Override
+        public void visitMediaType(MediaType mediaType) {
+            mediaType.setSchema(replaceLeaf(mediaType.getSchema()));
+        }
+
+        @Override
+        public void visitSchema(Schema schema) {
+            Map<String, Schema> properties = schema.getProperties();
+            if (properties != null) {
+                for (Map.Entry<String, Schema> property : properties.entrySet()) {
+                    property.setValue(replaceLeaf(property.getValue()));
+                }
+            }
+            if (schema.getAdditionalProperties() instanceof Schema) {
+                schema.setAdditionalProperties(replaceLeaf((Schema) schema.getAdditionalProperties()));
+            }
+            schema.setNot(replaceLeaf(schema.getNot()));
+            if (schema instanceof ArraySchema) {
+                ((ArraySchema) schema).setItems(replaceLeaf(((ArraySchema) schema).getItems()));
+            }
+            if (schema instanceof ComposedSchema) {
+                replaceLeaves(((ComposedSchema) schema).getAllOf());
+                replaceLeaves(((ComposedSchema) schema).getOneOf());
+                replaceLeaves(((ComposedSchema) schema).getAnyOf());
+            }
+        }
+
+        private void replaceLeaves(List<Schema> schemas) {
+            if (schemas != null) {
+                schemas.replaceAll(this::replaceLeaf);
+            }
+        }
+
+        private Schema replaceLeaf(Schema schema) {
+            return isLeaf(schema) ? replacement.apply(schema) : schema;
+        }
+    }
+}
@@ -0,0 +1,455 @@
+package apicross.apidocli.processors;
+
+import io.swagger.v3.oas.models.Components;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.Paths;
+import io.swagger.v3.oas.models.callbacks.Callback;
+import io.swagger.v3.oas.models.examples.Example;
+import io.swagger.v3.oas.models.headers.Header;
+import io.swagger.v3.oas.models.links.Link;
+import io.swagger.v3.oas.models.media.*;
+import io.swagger.v3.oas.models.parameters.Parameter;
+import io.swagger.v3.oas.models.parameters.RequestBody;
+import io.swagger.v3.oas.models.responses.ApiResponse;
+import io.swagger.v3.oas.models.security.SecurityScheme;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+/**
+ * Walks paths, operations and components of the specification once, calling all given visitors for every node.
+ * Given a fork/join pool, the walk is split over paths and components, see {@link SpecificationVisitor#fork()}.
+ */
+public class SpecificationTraverser {
+    // paths and components walked by a single task
+    private static final int TASK_SIZE = 64;
+
+    private final ForkJoinPool pool;
+    private long rewrittenRefs;
+
+    public SpecificationTraverser() {
+        this(null);
+    }
+
+    /**
+     * @param pool pool to walk the specification on, or {@code null} to walk it on the calling thread
+     */
+    public SpecificationTraverser(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public void traverse(OpenAPI openAPI, SpecificationVisitor... visitors) {
+        traverse(openAPI, Arrays.asList(visitors));
+    }
+
+    public void traverse(OpenAPI openAPI, List<? extends SpecificationVisitor> visitors) {
+        SpecificationVisitor[] visitorsArray = visitors.toArray(new SpecificationVisitor[0]);
+        if (pool != null && forkAll(visitorsArray) != null) {
+            List<Consumer<Walk>> nodes = nodes(openAPI);
+            rewrittenRefs += pool.invoke(new WalkTask(nodes, 0, nodes.size(), visitorsArray));
+        } else {
+            Walk walk = new Walk(visitorsArray);
+            walk.paths(openAPI.getPaths());
+            walk.components(openAPI.getComponents());
+            rewrittenRefs += walk.rewrittenRefs;
+        }
+        for (SpecificationVisitor visitor : visitors) {
+            visitor.complete(openAPI);
+        }
+    }
+
+    /**
+     * @return number of references changed by the visitors during all walks of this traverser
+     */
+    public long getRewrittenRefs() {
+        return rewrittenRefs;
+    }
+
+    /**
+     * @return top level nodes in order of the sequential walk: path items, then components of each type
+     */
+    private static List<Consumer<Walk>> nodes(OpenAPI openAPI) {
+        List<Consumer<Walk>> nodes = new ArrayList<>();
+        if (openAPI.getPaths() != null) {
+            for (Map.Entry<String, PathItem> entry : openAPI.getPaths().entrySet()) {
+                nodes.add(walk -> walk.path(entry.getKey(), entry.getValue()));
+            }
+        }
+        if (openAPI.getComponents() != null) {
+            for (ComponentType type : ComponentType.values()) {
+                Map<String, Object> section = type.get(openAPI.getComponents());
+                if (section != null) {
+                    for (Map.Entry<String, Object> entry : section.entrySet()) {
+                        nodes.add(walk -> walk.component(type, entry.getKey(), entry.getValue()));
+                    }
+                }
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * @return forked visitors, or {@code null} if any of the visitors can't be forked
+     */
+    private static SpecificationVisitor[] forkAll(SpecificationVisitor[] visitors) {
+        SpecificationVisitor[] forked = new SpecificationVisitor[visitors.length];
+        for (int i = 0; i < visitors.length; i++) {
+            forked[i] = visitors[i].fork();
+            if (forked[i] == null) {
+                return null;
+            }
+        }
+        return forked;
+    }
+
+    /**
+     * Walks range of the top level nodes, the second half of the range is walked by the forked visitors,
+     * which are joined once both halves are walked.
+     */
+    private static class WalkTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Consumer<Walk>> nodes;
+        private final int from;
+        private final int to;
+        private final SpecificationVisitor[] visitors;
+
+        WalkTask(List<Consumer<Walk>> nodes, int from, int to, SpecificationVisitor[] visitors) {
+            this.nodes = nodes;
+            this.from = from;
+            this.to = to;
+            this.visitors = visitors;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from <= TASK_SIZE) {
+                Walk walk = new Walk(visitors);
+                for (int i = from; i < to; i++) {
+                    nodes.get(i).accept(walk);
+                }
+                return walk.rewrittenRefs;
+            }
+
+            int middle = (from + to) >>> 1;
+            SpecificationVisitor[] forked = forkAll(visitors);
+            if (forked == null) {
+                Walk walk = new Walk(visitors);
+                for (int i = from; i < to; i++) {
+                    nodes.get(i).accept(walk);
+                }
+                return walk.rewrittenRefs;
+            }
+            WalkTask second = new WalkTask(nodes, middle, to, forked);
+            second.fork();
+            long outcome = new WalkTask(nodes, from, middle, visitors).compute() + second.join();
+            for (int i = 0; i < visitors.length; i++) {
+                visitors[i].join(forked[i]);
+            }
+            return outcome;
+        }
+    }
+
+    private static class Walk {
+        private final SpecificationVisitor[] visitors;
+        private long rewrittenRefs;
+
+        Walk(SpecificationVisitor[] visitors) {
+            this.visitors = visitors;
+        }
+
+        void paths(Paths paths) {
+            if (paths == null) {
+                return;
+            }
+            for (Map.Entry<String, PathItem> entry : paths.entrySet()) {
+                path(entry.getKey(), entry.getValue());
+            }
+        }
+
+        void path(String path, PathItem pathItem) {
+            for (SpecificationVisitor visitor : visitors) {
+                visitor.visitPathItem(path, pathItem);
+            }
+            pathItem(pathItem);
+        }
+
+        void components(Components components) {
+            if (components == null) {
+                return;
+            }
+            for (ComponentType type : ComponentType.values()) {
+                Map<String, Object> section = type.get(components);
+                if (section == null) {
+                    continue;
+                }
+                for (Map.Entry<String, Object> entry : section.entrySet()) {
+                    component(type, entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        void component(ComponentType type, String name, Object component) {
+            for (SpecificationVisitor visitor : visitors) {
+                visitor.enterComponent(type, name, component);
+            }
+            switch (type) {
+                case SCHEMAS:
+                    schema((Schema<?>) component);
+                    break;
+                case RESPONSES:
+                    response((ApiResponse) component);
+                    break;
+                case PARAMETERS:
+                    parameter((Parameter) component);
+                    break;
+                case EXAMPLES:
+                    example((Example) component);
+                    break;
+                case REQUEST_BODIES:
+                    requestBody((RequestBody) component);
+                    break;
+                case HEADERS:
+                    header((Header) component);
+                    break;
+                case SECURITY_SCHEMES:
+                    SecurityScheme securityScheme = (SecurityScheme) component;
+                    ref(ComponentType.SECURITY_SCHEMES, securityScheme.get$ref(), securityScheme::set$ref);
+                    break;
+                case LINKS:
+                    link((Link) component);
+                    break;
+                case CALLBACKS:
+                    callback((Callback) component);
+                    break;
+            }
+            for (SpecificationVisitor visitor : visitors) {
+                visitor.leaveComponent(type, name, component);
+            }
+        }
+
+        private void pathItem(PathItem pathItem) {
+            parameters(pathItem.getParameters());
+            for (Operation operation : pathItem.readOperations()) {
+                operation(operation);
+            }
+        }
+
+        private void operation(Operation operation) {
+            for (SpecificationVisitor visitor : visitors) {
+                visitor.visitOperation(operation);
+            }
+            parameters(operation.getParameters());
+            if (operation.getRequestBody() != null) {
+                requestBody(operation.getRequestBody());
+            }
+            if (operation.getResponses() != null) {
+                for (ApiResponse response : operation.getResponses().values()) {
+                    response(response);
+                }
+            }
+            if (operation.getCallbacks() != null) {
+                for (Callback callback : operation.getCallbacks().values()) {
+                    callback(callback);
+                }
+            }
+        }
+
+        private void callback(Callback callback) {
+            if (callback.get$ref() != null) {
+                ref(ComponentType.CALLBACKS, callback.get$ref(), callback::set$ref);
+                return;
+            }
+            for (PathItem pathItem : callback.values()) {
+                pathItem(pathItem);
+            }
+        }
+
+        private void parameters(List<Parameter> parameters) {
+            if (parameters != null) {
+                for (Parameter parameter : parameters) {
+                    parameter(parameter);
+                }
+            }
+        }
+
+        private void parameter(Parameter parameter) {
+            if (parameter.get$ref() != null) {
+                ref(ComponentType.PARAMETERS, parameter.get$ref(), parameter::set$ref);
+                return;
+            }
+            for (SpecificationVisitor visitor : visitors) {
+                visitor.visitParameter(parameter);
+            }
+            schema(parameter.getSchema());
+            content(parameter.getContent());
+            examples(parameter.getExamples());
+        }
+
+        private void requestBody(RequestBody requestBody) {
+            if (requestBody.get$ref() != null) {
+                ref(ComponentType.REQUEST_BODIES, requestBody.get$ref(), requestBody::set$ref);
+                return;
+            }
+            for (SpecificationVisitor visitor : visitors) {
+                visitor.visitRequestBody(requestBody);
+            }
+            content(requestBody.getContent());
+        }
+
+        private void response(ApiResponse response) {
+            if (response.get$ref() != null) {
+                ref(ComponentType.RESPONSES, response.get$ref(), response::set$ref);
+                return;
+            }
+            for (SpecificationVisitor visitor : visitors) {
+                visitor.visitResponse(response);
+            }
+            headers(response.getHeaders());
+            content(response.getContent());
+            if (response.getLinks() != null) {
+                for (Link link : response.getLinks().values()) {
+                    link(link);
+                }
+            }
+        }
+
+        private void link(Link link) {
+            if (link.get$ref() != null) {
+                ref(ComponentType.LINKS, link.get$ref(), link::set$ref);
+            }
+        }
+
+        private void headers(Map<String, Header> headers) {
+            if (headers != null) {
+                for (Header header : headers.values()) {
+                    header(header);
+                }
+            }
+        }
+
+        private void header(Header header) {
+            if (header.get$ref() != null) {
+                ref(ComponentType.HEADERS, header.get$ref(), header::set$ref);
+                return;
+            }
+            for (SpecificationVisitor visitor : visitors) {
+                visitor.visitHeader(header);
+            }
+            schema(header.getSchema());
+            content(header.getContent());
+            examples(header.getExamples());
+        }
+
+        private void content(Content content) {
+            if (content == null) {
+                return;
+            }
+            for (MediaType mediaType : content.values()) {
+                for (SpecificationVisitor visitor : visitors) {
+                    visitor.visitMediaType(mediaType);
+                }
+                schema(mediaType.getSchema());
+                examples(mediaType.getExamples());
+                if (mediaType.getEncoding() != null) {
+                    for (Encoding encoding : mediaType.getEncoding().values()) {
+                        headers(encoding.getHeaders());
+                    }
+                }
+            }
+        }
+
+        private void examples(Map<String, Example> examples) {
+            if (examples != null) {
+                for (Example example : examples.values()) {
+                    example(example);
+                }
+            }
+        }
+
+        private void example(Example example) {
+            if (example.get$ref() != null) {
+                ref(ComponentType.EXAMPLES, example.get$ref(), example::set$ref);
+                return;
+            }
+            for (SpecificationVisitor visitor : visitors) {
+                visitor.visitExample(example);
+            }
+        }
+
+        // swagger models keep subschemas in collections of raw schemas
+        @SuppressWarnings("rawtypes")
+        private void schemas(Collection<Schema> schemas) {
+            if (schemas != null) {
+                for (Schema<?> schema : schemas) {
+                    schema(schema);
+                }
+            }
+        }
+
+        private void schema(Schema<?> schema) {
+            if (schema == null) {
+                return;
+            }
+
+            if (schema.get$ref() != null) {
+                ref(ComponentType.SCHEMAS, schema.get$ref(), schema::set$ref);
+                return;
+            }
+
+            for (SpecificationVisitor visitor : visitors) {
+                visitor.visitSchema(schema);
+            }
+
+            if (schema.getProperties() != null) {
+                schemas(schema.getProperties().values());
+            }
+
+            if (schema.getAdditionalProperties() instanceof Schema) {
+                schema((Schema<?>) schema.getAdditionalProperties());
+            }
+
+            schema(schema.getNot());
+
+            if (schema instanceof ArraySchema) {
+                schema(((ArraySchema) schema).getItems());
+            }
+
+            if (schema instanceof ComposedSchema) {
+                schemas(((ComposedSchema) schema).getAllOf());
+                schemas(((ComposedSchema) schema).getOneOf());
+                schemas(((ComposedSchema) schema).getAnyOf());
+            }
+
+            Discriminator discriminator = schema.getDiscriminator();
+            if (discriminator != null && discriminator.getMapping() != null) {
+                for (Map.Entry<String, String> mapping : discriminator.getMapping().entrySet()) {
+                    ref(ComponentType.SCHEMAS, mapping.getValue(), mapping::setValue);
+                }
+            }
+        }
+
+        private void ref(ComponentType type, String ref, Consumer<String> refSetter) {
+            if (ref == null) {
+                return;
+            }
+            String outcome = ref;
+            for (SpecificationVisitor visitor : visitors) {
+                outcome = visitor.visitRef(type, outcome);
+            }
+            // nodes are written only when reference is changed, so walks of read-only visitors never mutate nodes
+            if (!outcome.equals(ref)) {
+                refSetter.accept(outcome);
+                rewrittenRefs++;
+            }
+        }
+    }
+}
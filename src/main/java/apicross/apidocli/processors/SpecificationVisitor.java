@@ -0,0 +1,95 @@
+package apicross.apidocli.processors;
+
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.examples.Example;
+import io.swagger.v3.oas.models.headers.Header;
+import io.swagger.v3.oas.models.media.MediaType;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.oas.models.parameters.Parameter;
+import io.swagger.v3.oas.models.parameters.RequestBody;
+import io.swagger.v3.oas.models.responses.ApiResponse;
+
+/**
+ * Per-node work of a processor, plugged into {@link SpecificationTraverser}. Several visitors passed to the same
+ * traversal are called one after another for every node, so their work is done in a single walk over the specification.
+ * <p>
+ * {@code visitXxx} methods are called for nodes which are not references, before their children are walked.
+ * References are passed to {@link #visitRef(ComponentType, String)} instead.
+ * <p>
+ * Traversal is parallel when all of its visitors can be {@link #fork() forked}: paths and components are split
+ * into consecutive ranges walked on different threads, each with its own forked visitors, which are then
+ * {@link #join(SpecificationVisitor) joined} in order of the ranges.
+ */
+public interface SpecificationVisitor {
+    /**
+     * Called for every path of the specification, before its operations are walked,
+     * so operations removed from the path item here are not walked at all.
+     */
+    default void visitPathItem(String path, PathItem pathItem) {
+    }
+
+    default void visitOperation(Operation operation) {
+    }
+
+    default void visitParameter(Parameter parameter) {
+    }
+
+    default void visitRequestBody(RequestBody requestBody) {
+    }
+
+    default void visitResponse(ApiResponse response) {
+    }
+
+    default void visitHeader(Header header) {
+    }
+
+    default void visitMediaType(MediaType mediaType) {
+    }
+
+    default void visitSchema(Schema<?> schema) {
+    }
+
+    default void visitExample(Example example) {
+    }
+
+    /**
+     * @param type type of the component expected at the place of the reference
+     * @param ref  reference
+     * @return reference to be set instead, or the same reference to keep it unchanged
+     */
+    default String visitRef(ComponentType type, String ref) {
+        return ref;
+    }
+
+    /**
+     * Called before the component from specification {@code components} section is walked.
+     */
+    default void enterComponent(ComponentType type, String name, Object component) {
+    }
+
+    default void leaveComponent(ComponentType type, String name, Object component) {
+    }
+
+    /**
+     * Called once the whole specification is walked.
+     */
+    default void complete(OpenAPI openAPI) {
+    }
+
+    /**
+     * @return visitor of the same kind, with its own empty state, to walk a range of nodes on another thread,
+     * or {@code null} if this visitor can't be forked, which makes the traversal sequential
+     */
+    default SpecificationVisitor fork() {
+        return null;
+    }
+
+    /**
+     * Adds the state collected by the forked visitor, which has walked nodes following the ones walked by this visitor,
+     * so the outcome is the same as if this visitor had walked them all.
+     */
+    default void join(SpecificationVisitor forked) {
+    }
+}
@@ -0,0 +1,151 @@
+package apicross.apidocli.processors;
+
+import io.swagger.v3.oas.models.Components;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.Paths;
+import io.swagger.v3.oas.models.tags.Tag;
+
+import java.util.*;
+
+/**
+ * Splits the specification into self-contained specifications, one per tag. Each of them has operations with its tag
+ * and only the components these operations refer to, directly or through other components; security schemes
+ * are referred to by name, so all of them are kept.
+ * <p>
+ * Given specification is not changed, and its nodes are shared with the outcome, so the outcome must not be changed.
+ */
+public class SplitByTagsProcessor {
+    /**
+     * @return specifications by their tags, in order of the tags first appearance
+     */
+    public Map<String, OpenAPI> process(OpenAPI openAPI) {
+        return process(openAPI, TagIndex.build(openAPI.getPaths()));
+    }
+
+    public Map<String, OpenAPI> process(OpenAPI openAPI, TagIndex tagIndex) {
+        ReferenceGraph graph = ReferenceGraph.build(openAPI);
+
+        Map<String, Tag> tagDefinitions = new HashMap<>();
+        if (openAPI.getTags() != null) {
+            for (Tag tag : openAPI.getTags()) {
+                tagDefinitions.putIfAbsent(tag.getName(), tag);
+            }
+        }
+
+        Map<String, OpenAPI> outcome = new LinkedHashMap<>();
+        for (String tag : tagIndex.getTags()) {
+            List<Tag> tags = tagDefinitions.containsKey(tag) ? Collections.singletonList(tagDefinitions.get(tag)) : null;
+            outcome.put(tag, part(openAPI, graph, tagIndex.operations(tag), tags));
+        }
+        return outcome;
+    }
+
+    /**
+     * Makes a specification of operations having any of given tags. Paths left without operations and definitions
+     * of tags left without operations are dropped, the same way as {@link RemoveOperationWithTagsProcessor} does,
+     * and components are limited to the reachable ones, the same way as for per-tag specifications.
+     */
+    public OpenAPI slice(OpenAPI openAPI, Set<String> tags) {
+        Map<String, Map<PathItem.HttpMethod, Operation>> operations = new LinkedHashMap<>();
+        Set<String> tagsWithOperations = new HashSet<>();
+        if (openAPI.getPaths() != null) {
+            for (Map.Entry<String, PathItem> path : openAPI.getPaths().entrySet()) {
+                for (Map.Entry<PathItem.HttpMethod, Operation> operation : path.getValue().readOperationsMap().entrySet()) {
+                    List<String> operationTags = operation.getValue().getTags();
+                    if (operationTags != null && !Collections.disjoint(operationTags, tags)) {
+                        operations.computeIfAbsent(path.getKey(), p -> new EnumMap<>(PathItem.HttpMethod.class))
+                                .put(operation.getKey(), operation.getValue());
+                        tagsWithOperations.addAll(operationTags);
+                    }
+                }
+            }
+        }
+
+        List<Tag> tagDefinitions = null;
+        if (openAPI.getTags() != null) {
+            tagDefinitions = new ArrayList<>();
+            for (Tag tag : openAPI.getTags()) {
+                if (tagsWithOperations.contains(tag.getName())) {
+                    tagDefinitions.add(tag);
+                }
+            }
+        }
+
+        return part(openAPI, ReferenceGraph.build(openAPI), operations, tagDefinitions);
+    }
+
+    private OpenAPI part(OpenAPI openAPI, ReferenceGraph graph,
+                         Map<String, Map<PathItem.HttpMethod, Operation>> operations, List<Tag> tags) {
+        OpenAPI part = new OpenAPI()
+                .openapi(openAPI.getOpenapi())
+                .info(openAPI.getInfo())
+                .externalDocs(openAPI.getExternalDocs())
+                .servers(openAPI.getServers())
+                .security(openAPI.getSecurity())
+                .paths(paths(openAPI.getPaths(), operations));
+        part.setExtensions(openAPI.getExtensions());
+        part.setTags(tags);
+        part.setComponents(components(openAPI.getComponents(), graph, part));
+        return part;
+    }
+
+    private Paths paths(Paths paths, Map<String, Map<PathItem.HttpMethod, Operation>> operations) {
+        Paths outcome = new Paths();
+        for (Map.Entry<String, Map<PathItem.HttpMethod, Operation>> path : operations.entrySet()) {
+            PathItem pathItem = paths.get(path.getKey());
+            PathItem part = new PathItem()
+                    .summary(pathItem.getSummary())
+                    .description(pathItem.getDescription())
+                    .servers(pathItem.getServers())
+                    .parameters(pathItem.getParameters());
+            part.set$ref(pathItem.get$ref());
+            part.setExtensions(pathItem.getExtensions());
+            for (Map.Entry<PathItem.HttpMethod, Operation> operation : path.getValue().entrySet()) {
+                part.operation(operation.getKey(), operation.getValue());
+            }
+            outcome.addPathItem(path.getKey(), part);
+        }
+        return outcome;
+    }
+
+    private Components components(Components components, ReferenceGraph graph, OpenAPI part) {
+        if (components == null) {
+            return null;
+        }
+
+        // part has no components yet, so only its paths are walked
+        BitSet roots = new BitSet();
+        new SpecificationTraverser().traverse(part, new SpecificationVisitor() {
+            @Override
+            public String visitRef(ComponentType type, String ref) {
+                if (ComponentType.ofRef(ref) != null) {
+                    roots.set(graph.node(ref));
+                }
+                return ref;
+            }
+        });
+        BitSet reachable = graph.reachable(roots);
+
+        Components outcome = new Components();
+        outcome.setExtensions(components.getExtensions());
+        outcome.setSecuritySchemes(components.getSecuritySchemes());
+        for (ComponentType type : ComponentType.values()) {
+            Map<String, Object> section = type.get(components);
+            if (type == ComponentType.SECURITY_SCHEMES || section == null) {
+                continue;
+            }
+            Map<String, Object> partSection = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> component : section.entrySet()) {
+                if (reachable.get(graph.node(type, component.getKey()))) {
+                    partSection.put(component.getKey(), component.getValue());
+                }
+            }
+            if (!partSection.isEmpty()) {
+                type.set(outcome, partSection);
+            }
+        }
+        return outcome;
+    }
+}
@@ -0,0 +1,58 @@
+package apicross.apidocli.processors;
+
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.Paths;
+
+import java.util.*;
+
+/**
+ * Operations of the specification grouped by their tags. Operation with several tags belongs to each of them.
+ */
+public class TagIndex {
+    private final Map<String, Map<String, Map<PathItem.HttpMethod, Operation>>> operationsByTag = new LinkedHashMap<>();
+    private int untaggedOperations;
+
+    public static TagIndex build(Paths paths) {
+        TagIndex index = new TagIndex();
+        if (paths != null) {
+            for (Map.Entry<String, PathItem> path : paths.entrySet()) {
+                for (Map.Entry<PathItem.HttpMethod, Operation> operation : path.getValue().readOperationsMap().entrySet()) {
+                    index.add(path.getKey(), operation.getKey(), operation.getValue());
+                }
+            }
+        }
+        return index;
+    }
+
+    private void add(String path, PathItem.HttpMethod method, Operation operation) {
+        List<String> tags = operation.getTags();
+        if (tags == null || tags.isEmpty()) {
+            untaggedOperations++;
+            return;
+        }
+        for (String tag : tags) {
+            operationsByTag.computeIfAbsent(tag, t -> new LinkedHashMap<>())
+                    .computeIfAbsent(path, p -> new EnumMap<>(PathItem.HttpMethod.class))
+                    .put(method, operation);
+        }
+    }
+
+    /**
+     * @return tags having operations, in order of their first appearance
+     */
+    public Set<String> getTags() {
+        return Collections.unmodifiableSet(operationsByTag.keySet());
+    }
+
+    /**
+     * @return operations with given tag by their paths and HTTP methods, in order of appearance
+     */
+    public Map<String, Map<PathItem.HttpMethod, Operation>> operations(String tag) {
+        return operationsByTag.getOrDefault(tag, Collections.emptyMap());
+    }
+
+    public int getUntaggedOperations() {
+        return untaggedOperations;
+    }
+}
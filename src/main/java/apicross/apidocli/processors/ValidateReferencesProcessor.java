@@ -0,0 +1,65 @@
+package apicross.apidocli.processors;
+
+import io.swagger.v3.oas.models.OpenAPI;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks that every internal {@code #/components/...} reference of the specification points to an existing component.
+ */
+public class ValidateReferencesProcessor {
+    private static final String COMPONENTS_REF_PREFIX = "#/components/";
+
+    /**
+     * @return internal references which can't be resolved against specification components, in order of appearance
+     */
+    public Set<String> process(OpenAPI openAPI) {
+        return process(openAPI, new SpecificationTraverser());
+    }
+
+    public Set<String> process(OpenAPI openAPI, SpecificationTraverser traverser) {
+        RefsCollector collector = new RefsCollector();
+        traverser.traverse(openAPI, collector);
+
+        Set<String> unresolved = new LinkedHashSet<>();
+        for (String ref : collector.refs) {
+            if (!isResolvable(ref, openAPI)) {
+                unresolved.add(ref);
+            }
+        }
+        return unresolved;
+    }
+
+    private static class RefsCollector implements SpecificationVisitor {
+        private final Set<String> refs = new LinkedHashSet<>();
+
+        @Override
+        public String visitRef(ComponentType type, String ref) {
+            if (ref.startsWith(COMPONENTS_REF_PREFIX)) {
+                refs.add(ref);
+            }
+            return ref;
+        }
+
+        @Override
+        public SpecificationVisitor fork() {
+            return new RefsCollector();
+        }
+
+        @Override
+        public void join(SpecificationVisitor forked) {
+            refs.addAll(((RefsCollector) forked).refs);
+        }
+    }
+
+    private boolean isResolvable(String ref, OpenAPI openAPI) {
+        ComponentType type = ComponentType.ofRef(ref);
+        if (type == null) {
+            return false;
+        }
+        Map<String, ?> section = type.get(openAPI.getComponents());
+        return section != null && section.containsKey(type.componentName(ref));
+    }
+}
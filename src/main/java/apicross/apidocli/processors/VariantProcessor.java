@@ -0,0 +1,194 @@
+package apicross.apidocli.processors;
+
+import io.swagger.v3.oas.models.Components;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.Paths;
+import io.swagger.v3.oas.models.tags.Tag;
+
+import java.util.*;
+
+/**
+ * Makes variants of the specification without operations with given tags, such as a public variant without
+ * internal operations, the same way as {@link RemoveOperationWithTagsProcessor} would remove them from a copy
+ * of the specification. Operations are looked up in the {@link TagIndex} built once for all variants, so
+ * removal takes time proportional to the number of removed operations.
+ * <p>
+ * Operations are removed from the merged specification, so a variant of the specification made of parts
+ * with the same path differs from the one with operations cut off from the parts before they are merged: once all
+ * operations of the latest definition of the path are removed, the path is removed as well, and its earlier
+ * definitions, replaced in the merge, are not brought back.
+ * <p>
+ * Given specification is not changed, and variants share its nodes: a variant has its own paths map and tag list,
+ * its own copies of path items it removes operations from, and of component maps when components are pruned,
+ * while the rest of the nodes is the same for all variants. So variants must not be changed.
+ */
+public class VariantProcessor {
+    private final OpenAPI openAPI;
+    private final TagIndex tagIndex;
+    private final Set<Operation> keptOperations;
+    private final Set<Tag> keptTags;
+    // built for the first pruned variant
+    private ReferenceGraph graph;
+
+    /**
+     * @param keptOperations operations which are never removed, such as operations of the main specification,
+     *                       compared by identity
+     * @param keptTags       tag definitions which are never removed, compared by identity
+     */
+    public VariantProcessor(OpenAPI openAPI, Set<Operation> keptOperations, Set<Tag> keptTags) {
+        this.openAPI = openAPI;
+        this.tagIndex = TagIndex.build(openAPI.getPaths());
+        this.keptOperations = keptOperations;
+        this.keptTags = keptTags;
+    }
+
+    /**
+     * @param prune whether to limit components to the ones reachable from the remaining operations, the same way
+     *              as {@link CleanUnusedModelsProcessor} does
+     */
+    public OpenAPI process(Set<String> cutOffTags, boolean prune) {
+        Map<String, Set<PathItem.HttpMethod>> removedOperations = new LinkedHashMap<>();
+        for (String tag : cutOffTags) {
+            for (Map.Entry<String, Map<PathItem.HttpMethod, Operation>> path : tagIndex.operations(tag).entrySet()) {
+                for (Map.Entry<PathItem.HttpMethod, Operation> operation : path.getValue().entrySet()) {
+                    if (!keptOperations.contains(operation.getValue())) {
+                        removedOperations.computeIfAbsent(path.getKey(), p -> EnumSet.noneOf(PathItem.HttpMethod.class))
+                                .add(operation.getKey());
+                    }
+                }
+            }
+        }
+
+        OpenAPI variant = new OpenAPI()
+                .openapi(openAPI.getOpenapi())
+                .info(openAPI.getInfo())
+                .externalDocs(openAPI.getExternalDocs())
+                .servers(openAPI.getServers())
+                .security(openAPI.getSecurity())
+                .paths(paths(removedOperations));
+        variant.setExtensions(openAPI.getExtensions());
+        variant.setTags(tags(removedOperations));
+        variant.setComponents(prune ? prunedComponents(variant.getPaths()) : openAPI.getComponents());
+        return variant;
+    }
+
+    private Paths paths(Map<String, Set<PathItem.HttpMethod>> removedOperations) {
+        if (openAPI.getPaths() == null) {
+            return null;
+        }
+        Paths paths = new Paths();
+        paths.putAll(openAPI.getPaths());
+        paths.setExtensions(openAPI.getPaths().getExtensions());
+        for (Map.Entry<String, Set<PathItem.HttpMethod>> path : removedOperations.entrySet()) {
+            PathItem pathItem = paths.get(path.getKey());
+            Map<PathItem.HttpMethod, Operation> operations = pathItem.readOperationsMap();
+            if (path.getValue().size() == operations.size()) {
+                paths.remove(path.getKey());
+                continue;
+            }
+            PathItem copy = new PathItem()
+                    .summary(pathItem.getSummary())
+                    .description(pathItem.getDescription())
+                    .servers(pathItem.getServers())
+                    .parameters(pathItem.getParameters());
+            copy.set$ref(pathItem.get$ref());
+            copy.setExtensions(pathItem.getExtensions());
+            for (Map.Entry<PathItem.HttpMethod, Operation> operation : operations.entrySet()) {
+                if (!path.getValue().contains(operation.getKey())) {
+                    copy.operation(operation.getKey(), operation.getValue());
+                }
+            }
+            paths.put(path.getKey(), copy);
+        }
+        return paths;
+    }
+
+    /**
+     * @return definitions of the tags except the ones left without operations; definitions of the tags which had
+     * no operations in the first place, and the kept ones, stay
+     */
+    private List<Tag> tags(Map<String, Set<PathItem.HttpMethod>> removedOperations) {
+        if (openAPI.getTags() == null || removedOperations.isEmpty()) {
+            return openAPI.getTags();
+        }
+
+        Map<String, Integer> removedByTag = new HashMap<>();
+        for (Map.Entry<String, Set<PathItem.HttpMethod>> path : removedOperations.entrySet()) {
+            Map<PathItem.HttpMethod, Operation> operations = openAPI.getPaths().get(path.getKey()).readOperationsMap();
+            for (PathItem.HttpMethod method : path.getValue()) {
+                for (String tag : new HashSet<>(operations.get(method).getTags())) {
+                    removedByTag.merge(tag, 1, Integer::sum);
+                }
+            }
+        }
+
+        List<Tag> tags = new ArrayList<>(openAPI.getTags().size());
+        for (Tag tag : openAPI.getTags()) {
+            Integer removed = removedByTag.get(tag.getName());
+            if (removed == null || keptTags.contains(tag) || removed < operationCount(tag.getName())) {
+                tags.add(tag);
+            }
+        }
+        return tags;
+    }
+
+    private int operationCount(String tag) {
+        int count = 0;
+        for (Map<PathItem.HttpMethod, Operation> operations : tagIndex.operations(tag).values()) {
+            count += operations.size();
+        }
+        return count;
+    }
+
+    private Components prunedComponents(Paths paths) {
+        Components components = openAPI.getComponents();
+        if (components == null) {
+            return null;
+        }
+        if (graph == null) {
+            graph = ReferenceGraph.build(openAPI);
+        }
+
+        // components which are never cleaned up are kept with everything they refer to
+        BitSet roots = new BitSet();
+        for (ComponentType type : ComponentType.values()) {
+            Map<String, Object> section = type.get(components);
+            if (section != null && !CleanUnusedModelsProcessor.DEFAULT_CLEANED_COMPONENT_TYPES.contains(type)) {
+                for (String name : section.keySet()) {
+                    roots.set(graph.node(type, name));
+                }
+            }
+        }
+        new SpecificationTraverser().traverse(new OpenAPI().paths(paths), new SpecificationVisitor() {
+            @Override
+            public String visitRef(ComponentType type, String ref) {
+                if (ComponentType.ofRef(ref) != null) {
+                    roots.set(graph.node(ref));
+                }
+                return ref;
+            }
+        });
+        BitSet reachable = graph.reachable(roots);
+
+        Components outcome = new Components();
+        outcome.setExtensions(components.getExtensions());
+        for (ComponentType type : ComponentType.values()) {
+            Map<String, Object> section = type.get(components);
+            if (section == null || section.isEmpty()
+                    || !CleanUnusedModelsProcessor.DEFAULT_CLEANED_COMPONENT_TYPES.contains(type)) {
+                type.set(outcome, section);
+                continue;
+            }
+            Map<String, Object> variantSection = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> component : section.entrySet()) {
+                if (reachable.get(graph.node(type, component.getKey()))) {
+                    variantSection.put(component.getKey(), component.getValue());
+                }
+            }
+            type.set(outcome, variantSection.isEmpty() ? null : variantSection);
+        }
+        return outcome;
+    }
+}